@@ -0,0 +1,95 @@
+package blackjack;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// class DealerBenchmark plays out the dealer's hand the way Settlement used to, totalling the
+// Hand again after every card, and with a DealerTable lookup per card. both take their cards
+// from the same list of shuffled Cards, so neither pays for dealing from a Deck
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealerBenchmark {
+    @Param({"s17", "h17"})
+    public String rules;
+
+    private static final int CARDS = 1 << 12; // cards cycled through, a power of two
+
+    private DealerTable table;
+    private Card[] cards; // the cards every hand is drawn from, in order
+    private int next; // the next card to draw
+    private Hand hand; // the dealer's hand
+
+    @Setup
+    public void setUp() {
+        table = RuleSet.parse(rules).dealerTable();
+        Deck deck = new Deck(new Random(1));
+        cards = new Card[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            if (i % 52 == 0) deck.shuffle();
+            cards[i] = deck.deal();
+        }
+        hand = new Hand(deck);
+
+        // both ways have to finish every hand on the same total
+        for (int i = 0; i < 100000; i++) {
+            int start = next;
+            int looped = handValueLoop();
+            next = start;
+            if (tableLookup() != looped)
+                throw new IllegalStateException("the dealer table finished hand " + i + " differently");
+        }
+    }
+
+    private Card draw() {
+        Card card = cards[next];
+        next = (next + 1) & (CARDS - 1);
+        return card;
+    }
+
+    // two cards, then hit while the rules say so, totalling the hand each time
+    @Benchmark
+    public int handValueLoop() {
+        hand.clearHand();
+        hand.addCard(draw());
+        hand.addCard(draw());
+        int total = hand.handValue();
+        while (table.hits(total, hand.isSoft())) {
+            hand.addCard(draw());
+            total = hand.handValue();
+        }
+        return total;
+    }
+
+    // two cards, then hit while the table says so, one lookup per card
+    @Benchmark
+    public int tableLookup() {
+        hand.clearHand();
+        hand.addCard(draw());
+        hand.addCard(draw());
+        int state = table.state(hand);
+        while (table.hits(state)) {
+            Card card = draw();
+            hand.addCard(card);
+            state = table.next(state, card);
+        }
+        return table.total(state);
+    }
+
+} // end class DealerBenchmark
@@ -0,0 +1,74 @@
+package blackjack;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+// class DeckBenchmark measures shuffling and dealing from a Deck, and from a Shoe
+// of each size in decks. a shoe shuffles as it deals, so its shuffle is timed with a deck's worth of deals
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckBenchmark {
+    private Deck deck;
+
+    // a shoe of each size in decks
+    @State(Scope.Thread)
+    public static class ShoeState {
+        @Param({"1", "8"})
+        public int decks;
+
+        Shoe shoe;
+
+        @Setup
+        public void setUp() {
+            shoe = new Shoe(decks, 0.75, 1);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        deck = new Deck(new Random(1));
+    }
+
+    @Benchmark
+    public void deckShuffle() {
+        deck.shuffle();
+    }
+
+    @Benchmark
+    public Card deckDeal() {
+        return deck.deal();
+    }
+
+    @Benchmark
+    public void shoeShuffleAndDeal(ShoeState state, Blackhole blackhole) {
+        state.shoe.shuffle();
+        for (int i = 0; i < Cards.COUNT; i++) {
+            blackhole.consume(state.shoe.deal());
+        }
+    }
+
+    @Benchmark
+    public int shoeDeal(ShoeState state) {
+        if (state.shoe.pastCutCard()) state.shoe.shuffle();
+        return state.shoe.deal();
+    }
+
+} // end class DeckBenchmark
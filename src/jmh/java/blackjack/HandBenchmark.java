@@ -0,0 +1,75 @@
+package blackjack;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// class HandBenchmark measures the Hand operations a round leans on, next to the
+// FastHand versions the simulation uses. both hands hold an ace, a six and a nine
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandBenchmark {
+    private Hand hand; // a hand of three cards
+    private Hand dealt; // a hand that is dealt to from a deck
+    private FastHand fastHand; // the same three cards as hand
+
+    @Setup
+    public void setUp() {
+        Deck deck = new Deck(new Random(1));
+        hand = new Hand(deck);
+        hand.addCard(new Card(0, Cards.ACE));
+        hand.addCard(new Card(1, 4));
+        hand.addCard(new Card(2, 7));
+        dealt = new Hand(deck);
+
+        fastHand = new FastHand();
+        fastHand.add(Cards.of(0, Cards.ACE));
+        fastHand.add(Cards.of(1, 4));
+        fastHand.add(Cards.of(2, 7));
+    }
+
+    // deals a fresh two card hand
+    @Benchmark
+    public int hit() {
+        dealt.clearHand();
+        dealt.hit();
+        dealt.hit();
+        return dealt.handSize();
+    }
+
+    @Benchmark
+    public int handValue() {
+        return hand.handValue();
+    }
+
+    @Benchmark
+    public String handCards() {
+        return hand.handCards();
+    }
+
+    @Benchmark
+    public int fastHandTotal() {
+        return fastHand.total();
+    }
+
+    @Benchmark
+    public String fastHandCards() {
+        return fastHand.handCards();
+    }
+
+} // end class HandBenchmark
@@ -0,0 +1,94 @@
+package blackjack;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// class HandTotalsBenchmark works out the totals of a batch of hands three ways: one hand at a
+// time walking its cards the way Hand.handValue() does, and the whole HandBatch at once with
+// ScalarTotals and with HandTotals.fastest(), which is VectorTotals when the incubator module
+// is there. the hands are dealt from a six deck shoe and drawn to until they reach 17
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandTotalsBenchmark {
+    @Param({"1024", "16384"})
+    public int hands;
+
+    private FastHand[] perHand; // every hand on its own
+    private HandBatch batch; // the same hands side by side
+    private final HandTotals scalar = new ScalarTotals();
+    private final HandTotals fastest = HandTotals.fastest();
+    private byte[] totals;
+    private boolean[] soft;
+
+    @Setup
+    public void setUp() {
+        Shoe shoe = new Shoe(6, 0.75, 1);
+        perHand = new FastHand[hands];
+        batch = new HandBatch(hands);
+        for (int h = 0; h < hands; h++) {
+            if (shoe.pastCutCard()) shoe.shuffle();
+            FastHand hand = new FastHand();
+            hand.add(shoe.deal());
+            hand.add(shoe.deal());
+            while (hand.total() < 17) hand.add(shoe.deal());
+            perHand[h] = hand;
+            batch.addHand(hand);
+        }
+        totals = new byte[hands];
+        soft = new boolean[hands];
+
+        fastest.totals(batch, totals, soft);
+        for (int h = 0; h < hands; h++) {
+            if (totals[h] != perHand[h].total() || soft[h] != perHand[h].soft())
+                throw new IllegalStateException(fastest.getClass().getSimpleName() + " got hand " + h + " wrong");
+        }
+        System.out.println("\nfastest evaluator: " + fastest.getClass().getSimpleName());
+    }
+
+    // walks each hand's cards, counting an ace as 11 when that doesn't bust it
+    @Benchmark
+    public byte[] perHand() {
+        for (int h = 0; h < perHand.length; h++) {
+            FastHand hand = perHand[h];
+            int value = 0;
+            boolean ace = false;
+            for (int i = 0; i < hand.size(); i++) {
+                int card = hand.card(i);
+                value += Cards.points(card);
+                if (Cards.isAce(card)) ace = true;
+            }
+            soft[h] = ace && value <= 11;
+            totals[h] = (byte) (soft[h] ? value + 10 : value);
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public byte[] batchScalar() {
+        scalar.totals(batch, totals, soft);
+        return totals;
+    }
+
+    @Benchmark
+    public byte[] batchFastest() {
+        fastest.totals(batch, totals, soft);
+        return totals;
+    }
+
+} // end class HandTotalsBenchmark
@@ -0,0 +1,121 @@
+package blackjack;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+// class RoundBenchmark measures whole rounds: the console game's playBlackjack and
+// determineWinners answering a script instead of a person, and the two simulations
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundBenchmark {
+    // bet 10, turn down the split or double down, then stand.
+    // a single seat, since a seat dealt 21 leaves its stand unread
+    private static final byte[] SCRIPT = "10\nno\nstand\n".getBytes(StandardCharsets.UTF_8);
+
+    private Deck deck;
+    private Player dealer;
+    private ArrayList<Player> table;
+    private PrintStream out;
+    private GameEvents events;
+    private Simulation simulation;
+    private ScriptedStrategy preparsed; // the same script, parsed once
+
+    @Setup
+    public void setUp() {
+        deck = new Deck(new Random(1));
+        dealer = new Player(deck);
+        table = new ArrayList<Player>();
+        table.add(new Player(deck));
+        out = new PrintStream(OutputStream.nullOutputStream());
+        events = new TextEvents(out);
+
+        simulation = new Simulation(3, new BasicStrategy(10), 1);
+        preparsed = ScriptedStrategy.parse(new String(SCRIPT, StandardCharsets.UTF_8));
+    }
+
+    // one round of the console game, played the way main plays it
+    @Benchmark
+    public int scriptedRound() {
+        deck.shuffle();
+        dealer.clearHands();
+        dealer.getHand(0).hit();
+        dealer.getHand(0).hit();
+        Player user = table.get(0);
+        user.clearHands();
+        user.setMoney(1000);
+
+        PlayerStrategy script = new ConsoleStrategy(new Scanner(new ByteArrayInputStream(SCRIPT)), out);
+        int[] bets = Blackjack.playBlackjack(table, dealer, script, events);
+        Blackjack.determineWinners(table, dealer, bets, events);
+        return user.getMoney();
+    }
+
+    // the same round answered from the script parsed up front, as ScriptedTable plays it
+    @Benchmark
+    public int preparsedRound() {
+        deck.shuffle();
+        dealer.clearHands();
+        dealer.getHand(0).hit();
+        dealer.getHand(0).hit();
+        Player user = table.get(0);
+        user.clearHands();
+        user.setMoney(1000);
+
+        preparsed.rewind();
+        int[] bets = Blackjack.playBlackjack(table, dealer, preparsed, events);
+        Blackjack.determineWinners(table, dealer, bets, events);
+        return user.getMoney();
+    }
+
+    // three seats of basic strategy with Card and Hand objects
+    @Benchmark
+    public void simulationRound() {
+        simulation.playRound();
+    }
+
+    // a fast simulation under the house rules, and with every rule option turned on,
+    // which should cost the same since the rules are worked out when the table is made
+    @State(Scope.Thread)
+    public static class FastTable {
+        @Param({"s17,splits=2,3:2", "h17,das,splits=4,surrender,6:5,insurance"})
+        public String rules;
+
+        FastSimulation simulation;
+
+        @Setup
+        public void setUp() {
+            RuleSet ruleSet = RuleSet.parse(rules);
+            simulation = new FastSimulation(3, new BasicStrategy(ruleSet, 10), 10, new Shoe(1, 0, 1), ruleSet);
+        }
+    }
+
+    // three seats of basic strategy with card codes and FastHands
+    @Benchmark
+    public void fastSimulationRound(FastTable table) {
+        table.simulation.playRound();
+    }
+
+} // end class RoundBenchmark
@@ -0,0 +1,248 @@
+package blackjack;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+
+// class Bankroll is a player's wallet, kept in cents.
+// every change is one atomic add, so a wallet shared by players at several tables
+// never loses a win or a loss, and wallets never wait on each other.
+// if there is a journal, every change is also appended to it
+class Bankroll {
+    static final long CENTS = 100; // cents in one unit of the game's money
+    static final long NO_ID = -1; // the id of a wallet that isn't filed anywhere, such as the house's
+
+    private final long id; // which wallet this is in the journal
+    private final AtomicLong cents; // the balance
+    private final LedgerJournal journal; // where changes are recorded, null for none
+
+    // a wallet kept only in memory, with no id
+    public Bankroll(long cents) {
+        this(NO_ID, cents, null);
+    }
+
+    public Bankroll(long id, long cents, LedgerJournal journal) {
+        this.id = id;
+        this.cents = new AtomicLong(cents);
+        this.journal = journal;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    // the balance in cents
+    long cents() {
+        return cents.get();
+    }
+
+    // adds the amount to the balance, negative to take it away, and returns the new balance
+    long add(long amount) {
+        long balance = cents.addAndGet(amount);
+        if (journal != null) journal.append(id, amount, balance);
+        return balance;
+    }
+
+    // replaces the balance, and returns the old one
+    long set(long balance) {
+        long old = cents.getAndSet(balance);
+        if (journal != null) journal.append(id, balance - old, balance);
+        return old;
+    }
+
+    // usage: java Bankroll [threads] [settlements per thread] [wallets] [journal file]
+    // every thread settles random wins and losses against a few shared wallets,
+    // then each balance is checked against the sum of what was settled and against the journal
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int settlements = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int wallets = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        Path file = Paths.get(args.length > 3 ? args[3] : "ledger.bin");
+
+        long start;
+        long elapsed;
+        long[] expected = new long[wallets];
+        Bankroll[] bankrolls = new Bankroll[wallets];
+        try (LedgerJournal journal = new LedgerJournal(file, 1 << 16)) {
+            for (int w = 0; w < wallets; w++) {
+                bankrolls[w] = new Bankroll(w, 1000 * CENTS, journal);
+                expected[w] = 1000 * CENTS;
+            }
+
+            long[][] settled = new long[threads][wallets];
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                long[] mine = settled[t];
+                SplittableRandom random = new SplittableRandom(t);
+                workers[t] = new Thread(() -> {
+                    for (int i = 0; i < settlements; i++) {
+                        int w = random.nextInt(wallets);
+                        long amount = (random.nextInt(41) - 20) * CENTS;
+                        bankrolls[w].add(amount);
+                        mine[w] += amount;
+                    }
+                }, "table-" + t);
+            }
+            start = System.nanoTime();
+            for (Thread worker : workers) worker.start();
+            for (Thread worker : workers) worker.join();
+            elapsed = System.nanoTime() - start;
+
+            for (long[] mine : settled) {
+                for (int w = 0; w < wallets; w++) expected[w] += mine[w];
+            }
+        }
+
+        long[] replayed = LedgerJournal.replay(file, wallets, 1000 * CENTS);
+        System.out.printf("%d settlements in %.3f s (%.0f per sec)%n", (long) threads * settlements,
+            elapsed / 1e9, (long) threads * settlements * 1e9 / elapsed);
+        for (int w = 0; w < wallets; w++) {
+            System.out.printf("wallet %d: balance %d, expected %d, journal %d%s%n", w, bankrolls[w].cents(),
+                expected[w], replayed[w],
+                bankrolls[w].cents() == expected[w] && replayed[w] == expected[w] ? "" : "  MISMATCH");
+        }
+    }
+
+} // end class Bankroll
+
+
+
+// an append-only record of every change to every Bankroll writing to it.
+// a record is three little endian longs: wallet id, amount in cents, balance after.
+// settling threads claim a slot in a ring with one atomic increment and fill it in;
+// a single writer thread copies whatever is ready into one buffer and writes it in one call,
+// so the file sees a few large writes however many tables are settling.
+// if a write fails the writer stops, and every append and close after that throws
+class LedgerJournal implements Closeable {
+    static final int RECORD_SIZE = 24;
+
+    private final int capacity; // slots in the ring, a power of two
+    private final int mask; // capacity - 1
+    private final AtomicLongArray ring; // four longs per slot: sequence + 1 once filled in, id, amount, balance
+    private final AtomicLong claimed = new AtomicLong(); // the next sequence to hand out
+    private final AtomicLong written = new AtomicLong(); // every sequence below this has been written
+    private final FileChannel channel; // the journal file
+    private final ByteBuffer batch; // records on their way to the file
+    private final Thread writer; // drains the ring into the file
+    private volatile boolean closing; // set once no more records are coming
+    private volatile Throwable failure; // why the writer stopped, if it couldn't write
+
+    public LedgerJournal(Path file, int capacity) throws IOException {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("journal capacity must be a power of two, not " + capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.ring = new AtomicLongArray(capacity * 4);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        this.batch = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.writer = new Thread(this::drain, "ledger-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // records a change; waits only if the writer has fallen a whole ring behind
+    void append(long id, long amount, long balance) {
+        checkWriter();
+        long sequence = claimed.getAndIncrement();
+        while (sequence - written.get() >= capacity) {
+            checkWriter();
+            Thread.yield();
+        }
+        int slot = (int) (sequence & mask) * 4;
+        ring.setPlain(slot + 1, id);
+        ring.setPlain(slot + 2, amount);
+        ring.setPlain(slot + 3, balance);
+        ring.setRelease(slot, sequence + 1);
+    }
+
+    // throws the error that stopped the writer, if it has stopped
+    private void checkWriter() {
+        Throwable cause = failure;
+        if (cause != null) throw new IllegalStateException("the ledger journal can't write any more", cause);
+    }
+
+    // writes records in sequence order as they are filled in, until closed and empty
+    // or until a write fails
+    private void drain() {
+        try {
+            drainRing();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+    }
+
+    private void drainRing() {
+        long next = 0;
+        while (true) {
+            int slot = (int) (next & mask) * 4;
+            while (ring.getAcquire(slot) == next + 1 && batch.hasRemaining()) {
+                batch.putLong(ring.getPlain(slot + 1)).putLong(ring.getPlain(slot + 2)).putLong(ring.getPlain(slot + 3));
+                next++;
+                slot = (int) (next & mask) * 4;
+            }
+            if (batch.position() > 0) {
+                write();
+                written.set(next);
+            } else if (closing && next == claimed.get()) {
+                return;
+            } else {
+                LockSupport.parkNanos(50000);
+            }
+        }
+    }
+
+    private void write() {
+        batch.flip();
+        try {
+            while (batch.hasRemaining()) channel.write(batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        batch.clear();
+    }
+
+    // writes every record appended so far and closes the file.
+    // nothing may be appended once this has started. if the writer failed, its failure is thrown
+    public void close() throws IOException {
+        closing = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        Throwable cause = failure;
+        if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+        if (cause != null) throw new IOException("the ledger journal stopped writing", cause);
+    }
+
+    // the balance of each wallet 0 to wallets - 1 after every change in the journal,
+    // starting from the given opening balance
+    static long[] replay(Path file, int wallets, long opening) throws IOException {
+        long[] balances = new long[wallets];
+        Arrays.fill(balances, opening);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer records = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (records.remaining() >= RECORD_SIZE) {
+                int id = (int) records.getLong();
+                balances[id] += records.getLong();
+                records.getLong();
+            }
+        }
+        return balances;
+    }
+
+} // end class LedgerJournal
@@ -0,0 +1,848 @@
+/**************************************
+* Author: Yash Parikh                 *
+* Date: 12/22/2021                    *
+**************************************/
+package blackjack;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+
+// class Deck represents a standard deck of card
+class Deck {
+    private Card[] deck; // an array of cards (the deck)
+    private final Card[] byCode = new Card[Cards.COUNT]; // the same cards, indexed by their Cards code
+    private int cardsUsed; // number of cards that have been dealt out
+    private final Random random; // the source of randomness for every shuffle
+    private DealListener listener; // told about every card dealt, if anyone is listening
+
+    public Deck() {
+        this(new Random());
+    }
+
+    // a deck shuffled by the given source, seed it for a repeatable order of cards
+    public Deck(Random random) {
+        this.random = random;
+        deck = new Card[52];
+        cardsUsed = 0;
+        int i = 0;
+        
+        // intialize all cards and place them into the deck
+        for (int value = 0; value <= 12; value++) {
+          for (int suit = 0; suit <= 3; suit++) {
+                deck[i] = new Card(suit, value);
+                byCode[Cards.of(suit, value)] = deck[i];
+                i++;
+            }
+        }
+        
+        // shuffle the deck
+        shuffle();
+
+    }
+
+        // randomize the elements by calling Collections.shuffle()
+        // every card is back in the deck after a shuffle
+    void shuffle() {
+        List < Card > cardList = Arrays.asList(deck);
+        Collections.shuffle(cardList, random);
+        cardList.toArray(deck);
+        cardsUsed = 0;
+        if (Metrics.ENABLED) Metrics.SHUFFLES.increment();
+    }
+
+    
+    // deal out one card, the next unused card
+    // reshuffles once every card has been dealt
+    Card deal() {
+        if (cardsUsed == deck.length) shuffle();
+        Card card = deck[cardsUsed++];
+        if (listener != null) listener.dealt(card);
+        if (Metrics.ENABLED) Metrics.DEALS.increment();
+        return card;
+    }
+
+    // copies the order of the cards and how many have been dealt into state, as card codes,
+    // so saving a position in the middle of a round copies 52 bytes rather than any Cards
+    void saveTo(DeckState state) {
+        for (int i = 0; i < deck.length; i++) {
+            state.cards[i] = (byte) Cards.of(deck[i].getSuit(), deck[i].getValue());
+        }
+        state.cardsUsed = cardsUsed;
+    }
+
+    // puts the deck back the way it was when state was saved, the same cards dealt next
+    void restore(DeckState state) {
+        for (int i = 0; i < deck.length; i++) {
+            deck[i] = byCode[state.cards[i]];
+        }
+        cardsUsed = state.cardsUsed;
+    }
+
+    // has every card dealt from now on reported to the given listener, null to stop
+    void setListener(DealListener listener) {
+        this.listener = listener;
+    }
+} // end class Deck
+
+
+// the order of a Deck's cards and how many had been dealt, saved by Deck.saveTo
+class DeckState {
+    final byte[] cards = new byte[Cards.COUNT]; // the code of every card, in the order they are dealt
+    int cardsUsed; // number of cards that had been dealt out
+
+} // end class DeckState
+
+
+// told about each card as it is dealt from a Deck
+interface DealListener {
+
+    // the card that was just dealt
+    void dealt(Card card);
+
+} // end interface DealListener
+
+
+class Card {
+  private final int suit; // the index of the suit array, used to det. suit
+  private final int value; // index of value array used to det. rank
+  
+   // list of all suits that are available, shared by every card
+    private static final String[] cardType = {
+        "Clubs",
+        "Spades",
+        "Diamonds",
+        "Hearts"
+    };
+    // list of all ranks that are available, shared by every card
+    private static final String[] cardValue = {
+        "2",
+        "3",
+        "4",
+        "5",
+        "6",
+        "7",
+        "8",
+        "9",
+        "10",
+        "Jack",
+        "Queen",
+        "King",
+        "Ace"
+    };
+
+
+    // constructor for card class, initializes local variables  
+    public Card(int suit, int value) {
+        this.suit = suit;
+        this.value = value;
+
+    }
+
+    // returns the card as a string
+    public String asString() {
+        return asString(suit, value);
+    }
+
+    // returns the card with the given suit and value indexes as a string
+    static String asString(int suit, int value) {
+        String output = cardValue[value] + " of " + cardType[suit];
+        return output;
+    }
+    
+    // returns the value private variable
+    int getValue() {
+        return this.value;
+    }
+
+    // returns the suit private variable
+    int getSuit() {
+        return this.suit;
+    }
+
+} //end class Card
+
+
+// this class represents a player of Blackjack
+class Player{
+  private final Hand[] hands; // every hand the player can split into, made once and reused each round
+  private final int[] handBets; // what the player has wagered on each of their hands
+  private int handCount; // the hands the player is playing this round
+  private final Bankroll bankroll; // the wealth of the player, defaults to 1000
+  private boolean splitted; // whether or not the player has split
+  
+  // a player with no id, such as the dealer
+  public Player(Deck deck) {
+      this(deck, new Bankroll(1000 * Bankroll.CENTS));
+  }
+
+  // the player with the given id, starting with 1000 in a bankroll of their own
+  public Player(Deck deck, long id) {
+      this(deck, new Bankroll(id, 1000 * Bankroll.CENTS, null));
+  }
+
+  // a player whose wealth is kept in the given bankroll, which other players may share
+  public Player(Deck deck, Bankroll bankroll) {
+      
+      // all players have one hand and some wealth, and room to split into the most hands any rules allow
+      hands = new Hand[RuleSet.MAX_HANDS];
+      for (int i = 0; i < hands.length; i++) hands[i] = new Hand(deck);
+      handBets = new int[RuleSet.MAX_HANDS];
+      handCount = 1;
+      this.bankroll = bankroll;
+  }
+  
+  // sets all hands to empty, leaving the player with one hand and nothing wagered
+  void clearHands(){
+    for (int i = 0; i < handCount; i++){
+      hands[i].clearHand();
+      handBets[i] = 0;
+    }
+    handCount = 1;
+    splitted = false;
+  }
+  
+  // getter method for the player's wealth
+  int getMoney() {
+    return (int) (bankroll.cents() / Bankroll.CENTS);
+  }
+  
+  // setter method for the player's wealth
+  void setMoney(int amount){
+    bankroll.set(amount * Bankroll.CENTS);
+  }
+
+  // adds winnings to the player's wealth, or takes away losses, in one atomic step
+  void addMoney(int amount){
+    bankroll.add(amount * Bankroll.CENTS);
+  }
+
+  // where the player's wealth is kept
+  Bankroll getBankroll(){
+    return bankroll;
+  }
+  
+  // amount of hands the player has, at this point in time
+  int handCount(){
+    return handCount;
+  }
+
+  // where the hand is in the set of hands the player has, -1 if it isn't one of them
+  int indexOf(Hand hand){
+    for (int i = 0; i < handCount; i++){
+      if (hands[i] == hand) return i;
+    }
+    return -1;
+  }
+  
+  // returns the hand at position i in the set of hands the player has
+  Hand getHand(int i){
+    if (i >= handCount) throw new IndexOutOfBoundsException("hand " + i + " of " + handCount);
+    return hands[i];
+  }
+  
+  // adds an empty hand to the set of hands the player has, and returns it
+  Hand addHand(){
+    if (handCount == hands.length)
+      throw new IllegalStateException("a player can't have more than " + hands.length + " hands");
+    Hand hand = hands[handCount++];
+    hand.clearHand();
+    return hand;
+  }
+
+  // what the player has wagered on the hand at position i
+  int getBet(int i){
+    return handBets[i];
+  }
+
+  // sets the wager on the hand at position i
+  void setBet(int i, int amount){
+    handBets[i] = amount;
+  }
+
+  // what the player has wagered on all their hands
+  int totalBet(){
+    int total = 0;
+    for (int i = 0; i < handCount; i++) total += handBets[i];
+    return total;
+  }
+  
+  // getter method for splitted
+  boolean getSplitted(){
+    return splitted;
+  }
+  // setter method for splitted
+  void setSplitted(boolean value){
+    splitted = value;
+  }
+
+}
+
+
+
+class Hand{
+  
+    // instance variables
+    private final Deck deck; // the deck provided for the hand to be drawn from
+    private ArrayList <Card> hand; // the cards in the hand
+    private boolean ace; // whether or not the hand contains an ace
+    private boolean busted; // whether or not the hand's value is > 21
+
+    
+    // constructor for the hand, takes in a deck
+    public Hand(Deck deck) {
+        this.deck = deck;
+        this.hand = new ArrayList<Card>();
+    }
+    
+    
+    // adds a random card to the hand
+    void hit() {
+        Card c = deck.deal();
+        if (c.getValue() == 13) ace = true;
+        hand.add(c);
+    }
+
+
+    // retrieves the value of the hand. 
+    // aces are counted as 11s, but they can be converted to ones 
+    // if the user hits
+    int handValue() {
+        int value = 0;
+        for (int i = 0; i < hand.size(); i++) {
+            int cardValue = hand.get(i).getValue();
+            if (cardValue == 12) {
+                value += 1;
+                ace = true;
+            } else if (cardValue >= 9) value += 10;
+            else value += cardValue + 2;
+        }
+
+        if (ace == true && value + 10 <= 21) {
+            value = value + 10;
+        }
+
+        return value;
+    }
+
+
+    // whether or not an ace in the hand is being counted as 11
+    boolean isSoft() {
+        int value = 0;
+        boolean hasAce = false;
+        for (int i = 0; i < hand.size(); i++) {
+            int cardValue = hand.get(i).getValue();
+            if (cardValue == 12) {
+                value += 1;
+                hasAce = true;
+            } else if (cardValue >= 9) value += 10;
+            else value += cardValue + 2;
+        }
+        return hasAce && value + 10 <= 21;
+    }
+
+    
+    // returns the hand as a string
+    String handCards() {
+        StringBuilder handCards = new StringBuilder();
+        for (int i = 0; i < hand.size(); i++) {
+            handCards.append(hand.get(i).asString()).append(' ');
+        }
+        return handCards.toString();
+    }
+    
+    // getter method for busted
+    boolean getBusted() {
+      return (busted == true);
+    }
+    
+    // setter method for busted
+    void setBusted(boolean val){
+      this.busted = val;
+    }
+    
+    // adds a card to the hand
+    void addCard(Card c){
+      hand.add(c);
+    }
+    
+    // retrieves the card at position in i in the hand
+    Card getCard(int i){
+      return hand.get(i);
+    }
+
+    // takes the last card out of the hand, to move it to a new hand when splitting
+    Card removeLast(){
+      return hand.remove(hand.size() - 1);
+    }
+    
+    // return the amount of cards in the hand
+    int handSize(){
+      return hand.size();
+    }
+    
+    // makes this hand a copy of another, sharing its Cards, to play a position out more than once
+    void copyFrom(Hand other){
+      hand.clear();
+      hand.addAll(other.hand);
+      ace = other.ace;
+      busted = other.busted;
+    }
+    
+    // removes all cards from the hand
+    void clearHand(){
+      ace = false;
+      busted = false;
+      hand.clear();
+    }
+    
+} //end class Player
+
+
+
+// the decisions a player makes during a round of blackjack.
+// the console game asks a person at the keyboard, simulations plug in a policy
+interface PlayerStrategy {
+
+    // the amount to wager before any cards are dealt, 0 to the player's wealth
+    int bet(Player user);
+
+    // whether or not to split a pair into two hands
+    boolean split(Player user, Hand hand, Card dealerCard);
+
+    // whether or not to double down on the first two cards
+    boolean doubleDown(Player user, Hand hand, Card dealerCard);
+
+    // how much to add to the bet when doubling down, 0 to the bet size
+    int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize);
+
+    // true to take another card, false to stand
+    boolean hit(Player user, Hand hand, Card dealerCard);
+
+} // end interface PlayerStrategy
+
+
+
+// asks the person at the console for each decision, re-prompting until the answer is valid
+class ConsoleStrategy implements PlayerStrategy {
+    private final Scanner reader; // where the player's answers are read from
+    private final PrintStream out; // where the questions are asked
+
+    public ConsoleStrategy(Scanner reader) {
+        this(reader, System.out);
+    }
+
+    public ConsoleStrategy(Scanner reader, PrintStream out) {
+        this.reader = reader;
+        this.out = out;
+    }
+
+    public int bet(Player user) {
+        out.println(">>> How much would you like to bet? Enter the amount below <<<");
+        int betSize;
+
+        //validate betsize input
+        do {
+            betSize = reader.nextInt();
+            if (betSize < 0 || betSize > user.getMoney())
+                out.println("Please enter a valid size (0 to your wealth)");
+        } while (betSize < 0 || betSize > user.getMoney());
+
+        // the rest of the line, so the next question reads the next answer
+        reader.nextLine();
+        return betSize;
+    }
+
+    public boolean split(Player user, Hand hand, Card dealerCard) {
+        out.println("Would you like to split? Enter 'split' if so, 'no' if not");
+        String choice;
+
+        // validate the user's choice
+        do {
+            choice = reader.nextLine();
+            if (!choice.equals("split") && !choice.equals("no"))
+                out.println("Please respond split or no");
+        } while (!choice.equals("split") && !choice.equals("no"));
+        return choice.equals("split");
+    }
+
+    public boolean doubleDown(Player user, Hand hand, Card dealerCard) {
+        out.println(">>> Would you like to double down? Enter 'double down' if so, 'no' if not");
+        String input;
+
+        //validate user input
+        do {
+            input = reader.nextLine();
+            if (!input.equals("double down") && !input.equals("no"))
+                out.println("Please respond 'double down' or 'no'");
+        } while (!input.equals("double down") && !input.equals("no"));
+        return input.equals("double down");
+    }
+
+    public int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize) {
+        out.println(">>> By how much would you you like to increase your bet? <<<");
+
+        int increase;
+        do {
+            increase = reader.nextInt();
+            if (increase < 0 || increase > betSize || increase + betSize > user.getMoney())
+                out.println("Please enter a valid size (0 to your bet size), assuming you can afford it");
+        } while (increase < 0 || increase > betSize || increase + betSize > user.getMoney());
+        reader.nextLine();
+        return increase;
+    }
+
+    public boolean hit(Player user, Hand hand, Card dealerCard) {
+        out.println(">>> Hit (hit) or stand (stand)? <<< ");
+        String choice;
+
+        // validate the user's choice
+        do {
+            choice = reader.nextLine();
+            if (!choice.equals("hit") && !choice.equals("stand"))
+                out.println("Please respond hit or stand");
+        } while (!choice.equals("hit") && !choice.equals("stand"));
+        return choice.equals("hit");
+    }
+
+} // end class ConsoleStrategy
+
+
+
+public class Blackjack {
+    private static Scanner stdin; // the one reader of System.in, shared by main and the console overloads
+    private static PlayerStrategy console; // the console player those overloads ask
+
+    // the reader of System.in, made the first time it is needed. a second Scanner on System.in
+    // would buffer input the first one never sees, which breaks piped input
+    static synchronized Scanner stdin() {
+        if (stdin == null) stdin = new Scanner(System.in);
+        return stdin;
+    }
+
+    // the player at the console, asked through stdin
+    static synchronized PlayerStrategy console() {
+        if (console == null) console = new ConsoleStrategy(stdin());
+        return console;
+    }
+  
+    //  Main method, prompts the user for game input then begins the game
+    // usage: java Blackjack [store directory]
+    // with a store, each seat's wealth is kept there between games, seat 0 as player 0 and so on,
+    // and every round is recorded
+    public static void main(String[] args) throws IOException {
+      
+      // Welcome the User to blackjack
+       System.out.println("*------------------------*");
+       System.out.println("*  WELCOME TO BLACKJACK  *");
+       System.out.println("*------------------------*");
+        Scanner reader = stdin();
+        PlayerStrategy console = console();
+        SessionStore store = args.length > 0 ? new SessionStore(Paths.get(args[0]), 1 << 10, 1 << 16) : null;
+        GameEvents events = new TextEvents(System.out);
+        if (store != null) events = store.recording(events);
+
+
+
+        //Initialize deck and dealer
+        Deck deck = new Deck();
+        Player dealer = new Player(deck);
+        Hand dealerHand = dealer.getHand(0);
+        dealerHand.hit();
+        dealerHand.hit();
+
+
+
+        //creates a table of players
+        ArrayList <Player> set = new ArrayList < Player > ();
+        System.out.println(">>> How many people would like to be seated at the blackjack table? <<<");
+        int count;
+        do {
+            count = reader.nextInt();
+            if (count <= 0 || count > RuleSet.HOUSE.seats())
+                System.out.println("Please enter a valid amount. The house only has up to " + RuleSet.HOUSE.seats() + " seats");
+        } while (count <= 0 || count > RuleSet.HOUSE.seats());
+
+        String names;
+        for (int i = 0; i < count; i++) {
+            set.add(store == null ? new Player(deck, i) : new Player(deck, store.bankroll(i, 1000 * Bankroll.CENTS)));
+        }
+        
+        
+
+        // Play the game
+        System.out.println("*------------------------*");
+        System.out.println("*        Let's Play      *");
+        System.out.println("*------------------------*");
+        int[] bets = playBlackjack(set, dealer, console, events);
+        determineWinners(set, dealer, bets, events);
+
+        // ask all players if they want to keep playing, remove those who do not
+        while (true) {
+          System.out.println("*------------------------*");
+          System.out.println("*       Play Again?      *");
+          System.out.println("*------------------------*");
+            System.out.println("All players must decide if they want to play again.");
+            
+            // use a while loop to handle issue of set.size() changing depending on input
+            int i = 0;
+            while (i < set.size()){
+                Player user = set.get(i);
+                user.clearHands();
+                if (user.getMoney() <= 0) {
+                    System.out.println("You can't afford to play \n");
+                    set.remove(i);
+                    continue;
+                }
+                System.out.println(">>> Would you like to play again? Type yes if so, no otherwise <<<");
+                String input;
+                do {
+                    input = reader.nextLine();
+                    if (!input.equals("yes") && !input.equals("no"))
+                        System.out.println("Please respond yes or no");
+                } while (!input.equals("yes") && !input.equals("no"));
+        
+        
+        
+                // ensure that they have confirmed they want to keep playing
+                if (input.equals("yes")){
+                  i++;
+                }
+        
+                // if they do not, remove them and print how much they won
+                else if (input.equals("no")) {
+                    System.out.println(" *** Thanks for coming today, your final wealth is " + set.get(i).getMoney() + " *** ");
+                    set.remove(i);
+                }
+        
+            }
+        
+            // end the game when no one wants to continue to play
+            if ((set.size() == 0)) break;
+            else System.out.println("Everyone will be reseated before the next round");
+            System.out.println("-----------------------------------");
+        
+        
+            // reinitialize fields, and play game again
+            deck.shuffle();
+            dealer.clearHands();
+            dealerHand.hit();
+            dealerHand.hit();
+            bets = playBlackjack(set, dealer, console, events);
+            determineWinners(set, dealer, bets, events);
+        
+        }
+
+        if (store != null) store.close();
+
+        // thank the user for playing
+        System.out.println("*------------------------*");
+        System.out.println("*   THANKS FOR PLAYING   *");
+        System.out.println("*      SEE YOU SOON      *");
+        System.out.println("*------------------------*");
+    }
+
+
+
+    // this methods returns the bets that are placed by each player, 
+    // and it also allows the players to make their decisions before the 
+    // dealer makes his/hers
+    public static int[] playBlackjack(ArrayList<Player> table, Player dealer) {
+        return playBlackjack(table, dealer, console(), new TextEvents(System.out));
+    }
+
+
+    // plays the players' side of the round, asking the strategy for every decision
+    // and reporting what happens to events
+    public static int[] playBlackjack(ArrayList<Player> table, Player dealer, PlayerStrategy strategy, GameEvents events) {
+        return playBlackjack(table, dealer, strategy, events, RuleSet.HOUSE);
+    }
+
+
+    // plays the players' side of the round under the given rules: how many hands a pair can be
+    // split into, and whether split hands can double down. every hand has its own wager on the
+    // player, and the total for each seat is returned
+    public static int[] playBlackjack(ArrayList<Player> table, Player dealer, PlayerStrategy strategy, GameEvents events,
+            RuleSet rules) {
+
+        //init vars
+        int[] betSizes = new int[table.size()];
+        if (Metrics.ENABLED) strategy = Metrics.timed(strategy);
+
+        for (int i = 0; i < table.size(); i++) {
+
+
+            // all users initially start with one hand,
+            Player user = table.get(i);
+            Hand userHand = user.getHand(0);
+            Hand dealerHand = dealer.getHand(0);
+            
+            // collect the initial bet
+            events.seatStarted(i, user);
+            int betSize = strategy.bet(user);
+            betSizes[i] = betSize;
+            user.setBet(0, betSize);
+
+
+            // give the user two cards
+            userHand.hit();
+            userHand.hit();
+            
+            // show the cards the players received
+            events.handShown(userHand, dealerHand.getCard(0));
+
+
+            // if the two cards are of equal value, splitting is an option
+            if (userHand.getCard(0).getValue() == userHand.getCard(1).getValue()){
+              
+              // each hand is offered the split again while it is a pair and the rules allow another hand
+              for (int j = 0; j < user.handCount(); j++){
+                userHand = user.getHand(j);
+                while (user.handCount() < rules.maxHands()
+                    && userHand.getCard(0).getValue() == userHand.getCard(1).getValue()
+                    && strategy.split(user, userHand, dealerHand.getCard(0))){
+                
+                  //they can only split if they can afford another bet
+                  if (user.totalBet() + betSize > user.getMoney()){
+                    events.splitRefused(user);
+                    break;
+                  }
+
+                  // move the second card to a new hand, and deal each of them a second card
+                  Hand next = user.addHand();
+                  next.addCard(userHand.removeLast());
+                  events.split(user, j, user.handCount() - 1);
+                  userHand.hit();
+                  next.hit();
+                  
+                  // the new hand carries its own bet, and indicate the user has split
+                  user.setBet(user.handCount() - 1, betSize);
+                  user.setSplitted(true);
+                  betSizes[i] += betSize;
+                  if (Metrics.ENABLED) Metrics.SPLITS.increment();
+                }
+              }
+            }
+            
+            // Note: a pair can't be doubled down on, split hands are offered it below if the rules allow
+            // provide the option to double down
+            else {
+              
+              // if they've decided to double down
+              if (strategy.doubleDown(user, userHand, dealerHand.getCard(0))) {
+                  int increase = strategy.doubleDownAmount(user, userHand, dealerHand.getCard(0), betSize);
+
+                  //as a result of doubling down, their bet size has changed
+                  betSizes[i] += increase;
+                  user.setBet(0, betSize + increase);
+
+
+                  // User takes one card then continues
+                  userHand.hit();
+                  
+                  // it is possible that they have busted now with their third
+                  if (userHand.handValue() > 21) userHand.setBusted(true);
+                  if (Metrics.ENABLED) {
+                      Metrics.DOUBLE_DOWNS.increment();
+                      if (userHand.getBusted()) Metrics.BUSTS.increment();
+                  }
+                  events.doubledDown(userHand);
+                  continue;
+              }
+            }
+
+
+            // iterate through all the hands the player has (more than one if split)
+            for (int j = 0; j < user.handCount(); j++){
+              userHand = user.getHand(j);
+              events.handStarted(userHand);
+              
+              
+              // if the user has blackjack or got to 21 after doubling down
+              if (userHand.handValue() == 21) {
+                  events.alreadyTwentyOne(userHand);
+                  events.handFinished(userHand);
+                  continue;
+              }
+
+
+              // split hands can double down too, when the rules allow it, as far as the player can afford
+              if (user.getSplitted() && rules.doubleAfterSplit()
+                  && strategy.doubleDown(user, userHand, dealerHand.getCard(0))) {
+                  int handBet = user.getBet(j);
+                  int increase = strategy.doubleDownAmount(user, userHand, dealerHand.getCard(0), handBet);
+                  increase = Math.max(0, Math.min(increase, Math.min(handBet, user.getMoney() - user.totalBet())));
+                  user.setBet(j, handBet + increase);
+                  betSizes[i] += increase;
+
+                  userHand.hit();
+                  if (userHand.handValue() > 21) userHand.setBusted(true);
+                  if (Metrics.ENABLED) {
+                      Metrics.DOUBLE_DOWNS.increment();
+                      if (userHand.getBusted()) Metrics.BUSTS.increment();
+                  }
+                  events.doubledDown(userHand);
+                  events.handFinished(userHand);
+                  continue;
+              }
+
+
+              // the user can decide whether or not to hit or stand while their total < 21
+              while (true) {
+
+                  // Show users cards and allow them to choose to hit or stand
+                    events.handShown(userHand, dealerHand.getCard(0));
+
+
+                  // stand: player has opted to stop taking cards
+                  if (!strategy.hit(user, userHand, dealerHand.getCard(0))) {
+
+                      events.stood(userHand);
+                      break;
+                  } 
+                  // hit: the player wants another card
+                  else { 
+                      userHand.hit();
+                      
+                      // ensure that they have not busted with the addition of this card
+                      if (userHand.handValue() > 21) userHand.setBusted(true);
+                      if (Metrics.ENABLED && userHand.getBusted()) Metrics.BUSTS.increment();
+                      events.hit(userHand);
+                      if (userHand.getBusted()) break;
+                  }
+
+              } // end while loop regarding hit or stand
+              events.handFinished(userHand);
+            } //end for loop iterating through hands
+          } //end for loop iterating through players
+          
+
+
+        return betSizes;
+
+    } // end playBlackjack
+
+
+    
+    public static void determineWinners(ArrayList<Player> table, Player dealer, int[] bets) {
+        determineWinners(table, dealer, bets, new TextEvents(System.out));
+    }
+
+
+    // plays out the dealer's hand and pays or collects each bet, reporting the results to events
+    public static void determineWinners(ArrayList<Player> table, Player dealer, int[] bets, GameEvents events) {
+        RoundResult result = new RoundResult(table.size());
+        events.dealerStarted(dealer.getHand(0));
+        Settlement.settle(table, dealer, bets, result);
+        events.roundSettled(table, dealer, result);
+    } // end result generation
+    } // end the Blackjack class
+
+
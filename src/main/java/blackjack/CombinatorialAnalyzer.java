@@ -0,0 +1,368 @@
+package blackjack;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+// class CombinatorialAnalyzer works out the exact EV of a round dealt from a full shoe, rather than
+// sampling it. it walks every two card hand, every card the player can draw to it and, through
+// DealerOdds, every way the dealer's hand can finish, weighting each by its chance from the cards left.
+// at every decision it takes either the best action for the cards left, or the one a FastStrategy
+// makes, so the same walk gives the house edge under perfect play and the exact number a
+// FastSimulation of that strategy should converge on.
+//
+// the round is settled the way this game settles it: the dealer doesn't peek, so a dealer blackjack
+// beats every hand but a 21 and takes doubled and split bets whole, a 21 of three or more cards pushes
+// it, and a two card 21 after a split is paid as a blackjack. only pairs of the same rank can be split,
+// and a pair can't be doubled down.
+// split hands are the one approximation: each is played as if the other split hands hadn't taken any
+// cards, and each may be resplit up to the rule set's limit on its own, as most analyzers do.
+//
+// every dealer face up card is analyzed as its own fork/join task, with its own DealerOdds and its own
+// cache of hand values keyed on the cards left plus the hand's total, since many different draws
+// reach the same hand with the same cards left
+class CombinatorialAnalyzer {
+    private final RuleSet rules; // the rules the round is settled under
+    private final int decks; // decks in the shoe
+    private final FastStrategy strategy; // the decisions taken, null for the best one at every point
+
+    public CombinatorialAnalyzer(RuleSet rules, int decks, FastStrategy strategy) {
+        DealerOdds.fullShoe(decks);
+        this.rules = rules;
+        this.decks = decks;
+        this.strategy = strategy;
+    }
+
+    // the EV of one unit bet on a round, the face up cards analyzed side by side on the pool.
+    // evByUp is filled with the EV given each face up card, indexed by its points
+    double analyze(ForkJoinPool pool, double[] evByUp) {
+        int[] shoe = DealerOdds.fullShoe(decks);
+        int cards = decks * Cards.COUNT;
+        UpCard[] tasks = new UpCard[11];
+        for (int up = 1; up <= 10; up++) {
+            tasks[up] = new UpCard(up);
+            pool.execute(tasks[up]);
+        }
+
+        double ev = 0;
+        for (int up = 1; up <= 10; up++) {
+            evByUp[up] = tasks[up].join();
+            ev += (double) shoe[up] / cards * evByUp[up];
+        }
+        return ev;
+    }
+
+    // one face up card's share of the walk
+    private class UpCard extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L; // never serialized, ForkJoinTask is Serializable
+        private final int up;
+
+        UpCard(int up) {
+            this.up = up;
+        }
+
+        protected Double compute() {
+            return new Walk(up).round();
+        }
+    }
+
+    // the walk under one face up card, with the cards left kept in one composition that is
+    // taken from as cards are drawn and put back as the walk returns. not thread safe
+    private class Walk {
+        private final int up; // the dealer's face up card, in points
+        private final int[] counts; // the cards left, by points, as in DealerOdds
+        private int left; // the number of cards left
+        private final DealerOdds dealerOdds; // how the dealer finishes with the cards left
+        private final double[] odds = new double[DealerOdds.OUTCOMES];
+        private final HandCache cache = new HandCache(); // hand values already worked out
+
+        Walk(int up) {
+            this.up = up;
+            this.counts = DealerOdds.fullShoe(decks);
+            this.left = decks * Cards.COUNT;
+            this.dealerOdds = new DealerOdds(rules);
+            take(up);
+        }
+
+        private void take(int points) {
+            counts[points]--;
+            left--;
+        }
+
+        private void putBack(int points) {
+            counts[points]++;
+            left++;
+        }
+
+        // the EV of the round given the face up card: every first and second card the player can be dealt
+        double round() {
+            double ev = 0;
+            for (int first = 1; first <= 10; first++) {
+                if (counts[first] == 0) continue;
+                double p1 = (double) counts[first] / left;
+                take(first);
+                // the chance a second ten is the same rank as the first, which makes it a pair
+                double sameRank = 4 * decks - 1 - (up == 10 ? (4.0 * decks - 1) / (16 * decks - 1) : 0);
+                for (int second = 1; second <= 10; second++) {
+                    if (counts[second] == 0) continue;
+                    double p2 = (double) counts[second] / left;
+                    double pair = first != second ? 0 : first == 10 ? sameRank / counts[10] : 1;
+                    take(second);
+                    ev += p1 * p2 * (pair * start(first, second, true) + (1 - pair) * start(first, second, false));
+                    putBack(second);
+                }
+                putBack(first);
+            }
+            return ev;
+        }
+
+        // the EV of a first hand of the given two cards
+        private double start(int first, int second, boolean pair) {
+            int hard = first + second;
+            boolean ace = first == 1 || second == 1;
+            boolean soft = ace && hard <= 11;
+            int total = soft ? hard + 10 : hard;
+            double dealerBlackjack = dealerBlackjack();
+
+            // insurance is a side bet of half the bet, paying 2:1 when the hole card is a ten
+            double insurance = 0;
+            if (rules.insurance() && up == 1) {
+                double ten = (double) counts[10] / left;
+                double value = ten - 0.5 * (1 - ten);
+                if (strategy == null ? value > 0 : strategy.insurance(total, soft)) insurance = value;
+            }
+
+            double surrender = -0.5 * (1 - dealerBlackjack) - dealerBlackjack;
+            boolean canSplit = pair && rules.maxHands() >= 2;
+
+            if (strategy != null) {
+                // split first, as FastSimulation does, so a pair is never surrendered as a hard total
+                if (canSplit && strategy.split(valueIndex(first), up)) return insurance + split(first);
+                if (rules.surrender() && strategy.surrender(total, soft, up)) return insurance + surrender;
+                if (!pair && strategy.doubleDown(total, soft, up)) return insurance + doubleDown(hard, ace);
+                if (total == 21) return insurance + blackjack(dealerBlackjack);
+                return insurance + play(hard, ace);
+            }
+
+            if (total == 21) return insurance + blackjack(dealerBlackjack);
+            double best = play(hard, ace);
+            if (rules.surrender()) best = Math.max(best, surrender);
+            if (canSplit) best = Math.max(best, split(first));
+            if (!pair) best = Math.max(best, doubleDown(hard, ace));
+            return insurance + best;
+        }
+
+        // the EV of a two card 21, pushing a dealer blackjack
+        private double blackjack(double dealerBlackjack) {
+            return rules.blackjackPays() * (1 - dealerBlackjack);
+        }
+
+        // the chance the dealer has blackjack with the cards left
+        private double dealerBlackjack() {
+            dealerOdds.probabilities(up, counts, odds);
+            return odds[DealerOdds.BLACKJACK];
+        }
+
+        // the EV of standing on the given total with the cards left
+        private double stand(int total) {
+            if (total > 21) return -1;
+            dealerOdds.probabilities(up, counts, odds);
+            double ev = odds[DealerOdds.BUST];
+            for (int dealer = 17; dealer <= 21; dealer++) {
+                double p = odds[dealer - 17];
+                if (total > dealer) ev += p;
+                else if (total < dealer) ev -= p;
+            }
+            // a dealer blackjack counts as 21, so only a 21 pushes it
+            if (total < 21) ev -= odds[DealerOdds.BLACKJACK];
+            return ev;
+        }
+
+        // the EV of doubling the bet and taking exactly one more card
+        private double doubleDown(int hard, boolean ace) {
+            double ev = 0;
+            for (int card = 1; card <= 10; card++) {
+                if (counts[card] == 0) continue;
+                double p = (double) counts[card] / left;
+                take(card);
+                int next = hard + card;
+                boolean nextAce = ace || card == 1;
+                ev += p * stand(nextAce && next <= 11 ? next + 10 : next);
+                putBack(card);
+            }
+            return 2 * ev;
+        }
+
+        // the EV of a hand from here on, hitting or standing as the strategy does or as is best.
+        // hard is the total with aces counted as 1
+        private double play(int hard, boolean ace) {
+            if (hard > 21) return -1;
+            boolean soft = ace && hard <= 11;
+            int total = soft ? hard + 10 : hard;
+
+            long key = DealerOdds.key(counts);
+            int state = hard << 1 | (ace ? 1 : 0);
+            int slot = cache.find(key, state);
+            if (slot >= 0) return cache.value(slot);
+
+            double stand = stand(total);
+            double value;
+            if (strategy != null && !strategy.hit(total, soft, up)) {
+                value = stand;
+            } else {
+                double hit = 0;
+                for (int card = 1; card <= 10; card++) {
+                    if (counts[card] == 0) continue;
+                    double p = (double) counts[card] / left;
+                    take(card);
+                    hit += p * play(hard + card, ace || card == 1);
+                    putBack(card);
+                }
+                value = strategy != null ? hit : Math.max(stand, hit);
+            }
+            cache.add(key, state, value);
+            return value;
+        }
+
+        // the EV of splitting a pair of the given points into two hands
+        private double split(int points) {
+            return 2 * splitHand(points, 2);
+        }
+
+        // the EV of one split hand that starts with the given card, when the seat has the given number of hands
+        private double splitHand(int points, int hands) {
+            double ev = 0;
+            for (int card = 1; card <= 10; card++) {
+                if (counts[card] == 0) continue;
+                double p = (double) counts[card] / left;
+                take(card);
+                double play = playSplit(points, card);
+                if (card == points && hands < rules.maxHands()) {
+                    // a drawn ten only pairs a ten of the same rank
+                    double pair = points == 10 ? (4.0 * decks - 2) / (16 * decks - 2) : 1;
+                    boolean resplit = strategy == null || strategy.split(valueIndex(points), up);
+                    double again = resplit ? 2 * splitHand(points, hands + 1) : play;
+                    ev += p * (pair * (strategy == null ? Math.max(again, play) : again) + (1 - pair) * play);
+                } else {
+                    ev += p * play;
+                }
+                putBack(card);
+            }
+            return ev;
+        }
+
+        // the EV of a split hand of the two given cards, which may double down if the rules allow
+        private double playSplit(int first, int second) {
+            int hard = first + second;
+            boolean ace = first == 1 || second == 1;
+            boolean soft = ace && hard <= 11;
+            int total = soft ? hard + 10 : hard;
+            if (total == 21) return blackjack(dealerBlackjack());
+
+            if (!rules.doubleAfterSplit()) return play(hard, ace);
+            if (strategy != null) return strategy.doubleDown(total, soft, up) ? doubleDown(hard, ace) : play(hard, ace);
+            return Math.max(play(hard, ace), doubleDown(hard, ace));
+        }
+    }
+
+    // the value index a strategy is asked to split, for a card of the given points
+    private static int valueIndex(int points) {
+        return points == 1 ? Cards.ACE : points - 2;
+    }
+
+    // an open addressing table from the cards left and a hand's total to the hand's EV
+    private static class HandCache {
+        private static final long EMPTY = -1; // no composition packs to this
+        private long[] keys = newKeys(4096);
+        private int[] states = new int[4096];
+        private double[] values = new double[4096];
+        private int size;
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int hash(long key, int state, int mask) {
+            key = (key ^ state * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+            return (int) (key ^ key >>> 32) & mask;
+        }
+
+        // the slot the hand's value is in, or -1 if it hasn't been added
+        int find(long key, int state) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, state, mask); ; slot = slot + 1 & mask) {
+                if (keys[slot] == key && states[slot] == state) return slot;
+                if (keys[slot] == EMPTY) return -1;
+            }
+        }
+
+        double value(int slot) {
+            return values[slot];
+        }
+
+        void add(long key, int state, double value) {
+            if (size * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            int slot = hash(key, state, mask);
+            while (keys[slot] != EMPTY) slot = slot + 1 & mask;
+            keys[slot] = key;
+            states[slot] = state;
+            values[slot] = value;
+            size++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldStates = states;
+            double[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            states = new int[keys.length];
+            values = new double[keys.length];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) add(oldKeys[slot], oldStates[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    // usage: java CombinatorialAnalyzer [decks] [rules] [simulated rounds] [seed]
+    // prints the exact EV of basic strategy and of perfect play off the top of a full shoe, then
+    // simulates basic strategy with a FastSimulation that shuffles before every round to check it
+    public static void main(String[] args) {
+        int decks = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        RuleSet rules = args.length > 1 ? RuleSet.parse(args[1]) : RuleSet.HOUSE;
+        long rounds = args.length > 2 ? Long.parseLong(args[2]) : 10000000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        System.out.println(decks + " decks, " + rules);
+
+        double[] basicByUp = new double[11];
+        double[] bestByUp = new double[11];
+        long start = System.nanoTime();
+        double basic = new CombinatorialAnalyzer(rules, decks, new BasicStrategy(rules, 10)).analyze(pool, basicByUp);
+        double best = new CombinatorialAnalyzer(rules, decks, null).analyze(pool, bestByUp);
+        System.out.printf("analyzed in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        pool.shutdown();
+
+        System.out.println("up    basic    perfect");
+        for (int up = 2; up <= 11; up++) {
+            int points = up == 11 ? 1 : up;
+            System.out.printf("%2s  %+.5f  %+.5f%n", up == 11 ? "A" : up, basicByUp[points], bestByUp[points]);
+        }
+        System.out.printf("basic strategy EV %+.5f%%, perfect play EV %+.5f%% of the bet%n", 100 * basic, 100 * best);
+
+        if (rounds <= 0) return;
+        Shoe shoe = new Shoe(decks, 0, seed);
+        FastSimulation simulation = new FastSimulation(1, new BasicStrategy(rules, 10), 10, shoe, rules);
+        RunningStats results = simulation.run(rounds).getResults(0);
+        double simulated = results.mean() / 10;
+        double error = results.halfWidth(SimulationStats.Z) / 10;
+        System.out.printf("simulated basic strategy EV %+.5f%% +/- %.5f%% over %d rounds, %s%n",
+            100 * simulated, 100 * error, rounds,
+            Math.abs(simulated - basic) <= error ? "agrees" : "DISAGREES with the exact EV");
+    }
+
+} // end class CombinatorialAnalyzer
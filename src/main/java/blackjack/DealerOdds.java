@@ -0,0 +1,214 @@
+package blackjack;
+
+import java.util.Arrays;
+
+
+// class DealerOdds works out exactly how the dealer's hand will finish, rather than sampling it.
+// given the dealer's face up card and the cards left in the shoe, it walks every way the
+// hole card and the dealer's hits can come out, the way determineWinners plays the dealer:
+// hit until the total is 17 or more, standing on a soft 17 unless the rule set says otherwise.
+//
+// a composition is an int[11] of how many cards of each point value are left, indexed
+// 1 for an ace up to 10 for tens and face cards, not counting the face up card.
+// answers are remembered by composition, packed into a long, so asking about the same
+// shoe again is a hash lookup. each face up card remembers up to MAX_REMEMBERED compositions;
+// when that is full it forgets them all and starts again, so a long run over many shoes stays
+// within a few megabytes. an instance is not thread safe, use one per thread
+class DealerOdds {
+    static final int OUTCOMES = 7; // the number of ways the dealer's hand can finish
+    static final int BLACKJACK = 5; // outcome index of a two card 21
+    static final int BUST = 6; // outcome index of going over 21
+    // outcome indexes 0 to 4 are standing on 17 to 21
+
+    private static final int MAX_DECKS = 15; // largest shoe whose composition still packs into a long
+    static final int MAX_REMEMBERED = 1 << 16; // compositions remembered for each face up card, a power of two
+
+    private final DealerTable dealerTable; // when the dealer draws
+    private final Memo[] memos; // remembered answers for each face up card, indexed by its points
+    private long lookups; // how many times probabilities has been asked for
+    private long computed; // how many of those had to be worked out
+
+    public DealerOdds() {
+        this(RuleSet.HOUSE);
+    }
+
+    public DealerOdds(RuleSet rules) {
+        this.dealerTable = rules.dealerTable();
+        memos = new Memo[11];
+        for (int up = 1; up <= 10; up++) {
+            memos[up] = new Memo();
+        }
+    }
+
+    // the cards left in a full shoe of the given number of decks, before anything is dealt
+    static int[] fullShoe(int decks) {
+        if (decks <= 0 || decks > MAX_DECKS)
+            throw new IllegalArgumentException("decks must be from 1 to " + MAX_DECKS + ", not " + decks);
+        int[] counts = new int[11];
+        for (int points = 1; points <= 9; points++) {
+            counts[points] = 4 * decks;
+        }
+        counts[10] = 16 * decks;
+        return counts;
+    }
+
+    // packs a composition into a long: six bits for each of aces through nines, eight for tens
+    static long key(int[] counts) {
+        long key = counts[10];
+        for (int points = 1; points <= 9; points++) {
+            key = key << 6 | counts[points];
+        }
+        return key;
+    }
+
+    // fills into with the chance of each outcome when the dealer shows upPoints
+    // and counts are the cards left in the shoe
+    void probabilities(int upPoints, int[] counts, double[] into) {
+        lookups++;
+        long key = key(counts);
+        Memo memo = memos[upPoints];
+        int slot = memo.find(key);
+        if (slot < 0) {
+            computed++;
+            int left = 0;
+            for (int points = 1; points <= 10; points++) {
+                left += counts[points];
+            }
+            double[] odds = new double[OUTCOMES];
+            draw(upPoints, upPoints == 1, 1, counts, left, 1.0, odds);
+            slot = memo.add(key, odds);
+        }
+        System.arraycopy(memo.values, slot * OUTCOMES, into, 0, OUTCOMES);
+    }
+
+    // the chance the dealer busts when showing upPoints with counts left in the shoe
+    double bustProbability(int upPoints, int[] counts) {
+        double[] odds = new double[OUTCOMES];
+        probabilities(upPoints, counts, odds);
+        return odds[BUST];
+    }
+
+    // adds the chance of each way a dealer hand can finish, given it was reached with chance p.
+    // hard is the total with aces counted as 1
+    private void draw(int hard, boolean ace, int cards, int[] counts, int left, double p, double[] odds) {
+        boolean soft = ace && hard <= 11;
+        int total = soft ? hard + 10 : hard;
+        if (cards == 2 && total == 21) {
+            odds[BLACKJACK] += p;
+            return;
+        }
+        if (hard > 21) {
+            odds[BUST] += p;
+            return;
+        }
+        if (!dealerTable.hits(DealerTable.state(hard, ace))) {
+            odds[total - 17] += p;
+            return;
+        }
+
+        for (int points = 1; points <= 10; points++) {
+            int count = counts[points];
+            if (count == 0) continue;
+            counts[points]--;
+            draw(hard + points, ace || points == 1, cards + 1, counts, left - 1, p * count / left, odds);
+            counts[points]++;
+        }
+    }
+
+    long getLookups() {
+        return lookups;
+    }
+
+    long getComputed() {
+        return computed;
+    }
+
+    // an open addressing table from composition keys to rows of outcome odds
+    private static class Memo {
+        private static final long EMPTY = -1; // no composition packs to this
+        private long[] keys = newKeys(1024);
+        private double[] values = new double[1024 * OUTCOMES];
+        private int size;
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int hash(long key, int mask) {
+            key *= 0x9E3779B97F4A7C15L;
+            return (int) (key ^ key >>> 32) & mask;
+        }
+
+        // the slot the key's odds are in, or -1 if it hasn't been added
+        int find(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key, mask); ; slot = slot + 1 & mask) {
+                if (keys[slot] == key) return slot;
+                if (keys[slot] == EMPTY) return -1;
+            }
+        }
+
+        // remembers the odds for a key, returning the slot they were put in.
+        // a full memo is cleared first, rather than grown
+        int add(long key, double[] odds) {
+            if (size == MAX_REMEMBERED) clear();
+            else if (size * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            int slot = hash(key, mask);
+            while (keys[slot] != EMPTY) slot = slot + 1 & mask;
+            keys[slot] = key;
+            System.arraycopy(odds, 0, values, slot * OUTCOMES, OUTCOMES);
+            size++;
+            return slot;
+        }
+
+        private void clear() {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new double[keys.length * OUTCOMES];
+            size = 0;
+            double[] odds = new double[OUTCOMES];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] == EMPTY) continue;
+                System.arraycopy(oldValues, slot * OUTCOMES, odds, 0, OUTCOMES);
+                add(oldKeys[slot], odds);
+            }
+        }
+    }
+
+    // usage: java DealerOdds [decks]
+    // prints how the dealer finishes for each face up card off the top of a full shoe
+    public static void main(String[] args) {
+        int decks = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        DealerOdds dealerOdds = new DealerOdds();
+        double[] odds = new double[OUTCOMES];
+
+        System.out.println("up      17      18      19      20      21      BJ    bust");
+        for (int up = 2; up <= 11; up++) {
+            int points = up == 11 ? 1 : up;
+            int[] counts = fullShoe(decks);
+            counts[points]--;
+
+            long start = System.nanoTime();
+            dealerOdds.probabilities(points, counts, odds);
+            long first = System.nanoTime() - start;
+            start = System.nanoTime();
+            dealerOdds.probabilities(points, counts, odds);
+            long again = System.nanoTime() - start;
+
+            StringBuilder row = new StringBuilder(up == 11 ? " A" : String.format("%2d", up));
+            for (double p : odds) row.append(String.format("  %.4f", p));
+            row.append(String.format("   (%d us, then %d ns remembered)", first / 1000, again));
+            System.out.println(row);
+        }
+    }
+
+} // end class DealerOdds
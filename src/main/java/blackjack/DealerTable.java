@@ -0,0 +1,85 @@
+package blackjack;
+
+
+// class DealerTable plays the dealer's hand by looking it up rather than adding it up.
+// all the dealer's play depends on is the hand's hard total and whether it holds an ace, so
+// that pair is the hand's state, numbered hard * 2 + ace. for every state the table knows
+// the state each card leads to, whether the dealer draws, and the total the hand counts as,
+// so drawing to 17 is one array lookup per card instead of walking the hand again.
+// there is one table for dealers who stand on soft 17 and one for dealers who hit it,
+// built once and shared; RuleSet.dealerTable picks the one its rules play.
+// it is the only place the dealer's drawing rule is written down; hands that keep their own
+// total, like FastHand, ask it with hits(total, soft)
+class DealerTable {
+    static final int EMPTY = 0; // the state of a hand with no cards
+    static final int MAX_HARD = 31; // hard totals are capped here, above anything a dealer can reach
+    static final int STATES = (MAX_HARD + 1) * 2;
+    static final int COLUMNS = 11; // one for each card's points, 1 for an ace up to 10
+
+    static final DealerTable STANDS_SOFT_17 = new DealerTable(false);
+    static final DealerTable HITS_SOFT_17 = new DealerTable(true);
+
+    private final byte[] next = new byte[STATES * COLUMNS]; // the state after drawing, at state * COLUMNS + points
+    private final boolean[] hits = new boolean[STATES]; // whether the dealer draws in each state
+    private final byte[] total = new byte[STATES]; // what each state counts as, an ace as 11 when that doesn't bust it
+
+    private DealerTable(boolean hitSoft17) {
+        for (int hard = 0; hard <= MAX_HARD; hard++) {
+            for (int ace = 0; ace <= 1; ace++) {
+                int state = hard * 2 + ace;
+                boolean soft = ace == 1 && hard <= 11;
+                int value = soft ? hard + 10 : hard;
+                total[state] = (byte) value;
+                hits[state] = value <= 16 || value == 17 && soft && hitSoft17;
+                for (int points = 1; points < COLUMNS; points++) {
+                    int after = Math.min(hard + points, MAX_HARD);
+                    next[state * COLUMNS + points] = (byte) (after * 2 + (points == 1 ? 1 : ace));
+                }
+            }
+        }
+    }
+
+    static DealerTable of(boolean hitSoft17) {
+        return hitSoft17 ? HITS_SOFT_17 : STANDS_SOFT_17;
+    }
+
+    // the state of a hand with the given hard total, aces counted as 1, up to MAX_HARD
+    static int state(int hard, boolean ace) {
+        return hard * 2 + (ace ? 1 : 0);
+    }
+
+    // the state after a card worth the given points, aces counted as 1
+    int next(int state, int points) {
+        return next[state * COLUMNS + points];
+    }
+
+    // the state after the given card
+    int next(int state, Card card) {
+        return next[state * COLUMNS + Cards.valuePoints(card.getValue())];
+    }
+
+    // the state of the cards already in a hand
+    int state(Hand hand) {
+        int state = EMPTY;
+        for (int i = 0; i < hand.handSize(); i++) {
+            state = next(state, hand.getCard(i));
+        }
+        return state;
+    }
+
+    // whether the dealer takes another card in the given state
+    boolean hits(int state) {
+        return hits[state];
+    }
+
+    // whether the dealer takes another card on the given total, soft if an ace counts as 11
+    boolean hits(int total, boolean soft) {
+        return hits[soft ? state(total - 10, true) : state(total, false)];
+    }
+
+    // the value of a hand in the given state, the same value Hand.handValue() gives
+    int total(int state) {
+        return total[state];
+    }
+
+} // end class DealerTable
@@ -0,0 +1,142 @@
+package blackjack;
+
+// class Cards encodes a card as a single small number, so the simulation can deal
+// cards without creating Card objects. the code of a card is value * 4 + suit,
+// using the same suit and value indexes as the Card class
+final class Cards {
+    static final int COUNT = 52; // the number of distinct cards
+    static final int ACE = 12; // the value index of an ace
+
+    // the points each value index counts for, aces counted as 1
+    private static final byte[] POINTS = {2, 3, 4, 5, 6, 7, 8, 9, 10, 10, 10, 10, 1};
+
+    private Cards() {
+    }
+
+    // the code of the card with the given suit and value indexes
+    static int of(int suit, int value) {
+        return value * 4 + suit;
+    }
+
+    // the value index of a card, 0 for a two through 12 for an ace
+    static int value(int card) {
+        return card >> 2;
+    }
+
+    // the suit index of a card
+    static int suit(int card) {
+        return card & 3;
+    }
+
+    // what the card adds to a hand, aces counted as 1
+    static int points(int card) {
+        return POINTS[card >> 2];
+    }
+
+    // what a card with the given value index adds to a hand, aces counted as 1
+    static int valuePoints(int value) {
+        return POINTS[value];
+    }
+
+    static boolean isAce(int card) {
+        return card >> 2 == ACE;
+    }
+
+    // returns the card as a string, the same way Card.asString() does
+    static String asString(int card) {
+        return Card.asString(suit(card), value(card));
+    }
+
+} // end class Cards
+
+
+
+// class FastHand is a hand of card codes in a fixed-size array.
+// the total is kept up to date as cards arrive, so asking for it never walks the hand
+class FastHand {
+    // 21 aces is the longest hand that hasn't busted, plus the card that busts it
+    static final int CAPACITY = 22;
+
+    private final byte[] cards; // the card codes in the hand
+    private int size; // the number of cards in the hand
+    private int hardTotal; // the total with every ace counted as 1
+    private boolean ace; // whether or not the hand contains an ace
+
+    public FastHand() {
+        cards = new byte[CAPACITY];
+    }
+
+    // adds a card to the hand
+    void add(int card) {
+        cards[size++] = (byte) card;
+        hardTotal += Cards.points(card);
+        if (Cards.isAce(card)) ace = true;
+    }
+
+    // the value of the hand, with one ace counted as 11 when that doesn't bust it.
+    // the same value Hand.handValue() gives for the same cards
+    int total() {
+        return soft() ? hardTotal + 10 : hardTotal;
+    }
+
+    // whether or not an ace is being counted as 11
+    boolean soft() {
+        return ace && hardTotal <= 11;
+    }
+
+    // a two card 21
+    boolean blackjack() {
+        return size == 2 && total() == 21;
+    }
+
+    boolean busted() {
+        return hardTotal > 21;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // the card code at position i in the hand
+    int card(int i) {
+        return cards[i];
+    }
+
+    // takes the last card back out of the hand, used when splitting
+    int removeLast() {
+        int card = cards[--size];
+        hardTotal -= Cards.points(card);
+        if (Cards.isAce(card)) {
+            ace = false;
+            for (int i = 0; i < size; i++) {
+                if (Cards.isAce(cards[i])) ace = true;
+            }
+        }
+        return card;
+    }
+
+    // makes this hand a copy of another, card for card
+    void copyFrom(FastHand other) {
+        System.arraycopy(other.cards, 0, cards, 0, other.size);
+        size = other.size;
+        hardTotal = other.hardTotal;
+        ace = other.ace;
+    }
+
+    // removes all cards from the hand
+    void clear() {
+        size = 0;
+        hardTotal = 0;
+        ace = false;
+    }
+
+    // returns the hand as a string, the same way Hand.handCards() does
+    String handCards() {
+        StringBuilder handCards = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            handCards.append(Cards.asString(cards[i])).append(' ');
+        }
+        return handCards.toString();
+    }
+
+} // end class FastHand
@@ -0,0 +1,282 @@
+package blackjack;
+
+// the decisions of a simulated player, asked with plain numbers instead of Hand and Card objects.
+// dealerPoints is what the dealer's face up card counts for, 1 for an ace up to 10
+interface FastStrategy {
+
+    // whether or not to split a pair of cards with the given value index
+    boolean split(int value, int dealerPoints);
+
+    // whether or not to double down, for the full bet, on the first two cards
+    boolean doubleDown(int total, boolean soft, int dealerPoints);
+
+    // true to take another card, false to stand
+    boolean hit(int total, boolean soft, int dealerPoints);
+
+    // whether or not to give up half the bet on the first two cards, only asked when the rules allow it
+    default boolean surrender(int total, boolean soft, int dealerPoints) {
+        return false;
+    }
+
+    // whether or not to take insurance against the dealer's ace, only asked when the rules allow it
+    default boolean insurance(int total, boolean soft) {
+        return false;
+    }
+
+} // end interface FastStrategy
+
+
+
+// class FastSimulation plays the same rounds as Simulation, under the same house rules
+// as playBlackjack and determineWinners, but with card codes and FastHands.
+// a RuleSet can change those rules; what it allows is copied into final fields when the
+// table is made, so the round loop costs the same whatever the rules are.
+// everything a round needs is created up front, so playing a round allocates nothing
+class FastSimulation {
+    private final Shoe shoe; // the cards every seat and the dealer are dealt from
+
+    private final FastHand dealer; // the dealer's hand
+    private final FastHand[][] hands; // every seat's hands, the ones after the first are only used after splits
+    private final int[] handCount; // the number of hands each seat is playing this round
+    private final int[][] handBets; // what each seat has wagered on each of their hands this round
+    private final int[] insured; // what each seat has staked on insurance this round
+    private final boolean[] surrendered; // whether each seat has given up their hand this round
+    private final FastStrategy strategy; // makes every seat's decisions
+    private final int betSize; // the wager every seat opens with
+    private final SimulationStats stats; // what each seat has won and lost so far
+
+    // the rules, worked out once
+    private final RuleSet rules; // the blackjack payout
+    private final DealerTable dealerTable; // when the dealer draws
+    private final int maxHands; // the most hands a seat can split into
+    private final boolean doubleAfterSplit; // whether split hands can double down
+    private final boolean surrender; // whether seats are offered surrender
+    private final boolean insurance; // whether seats are offered insurance
+
+    // a single deck shuffled before every round, like the console game
+    public FastSimulation(int seats, FastStrategy strategy, int betSize, long seed) {
+        this(seats, strategy, betSize, new Shoe(1, 0, seed));
+    }
+
+    public FastSimulation(int seats, FastStrategy strategy, int betSize, Shoe shoe) {
+        this(seats, strategy, betSize, shoe, RuleSet.HOUSE);
+    }
+
+    public FastSimulation(int seats, FastStrategy strategy, int betSize, Shoe shoe, RuleSet rules) {
+        if (seats > rules.seats())
+            throw new IllegalArgumentException("these rules only have " + rules.seats() + " seats, not " + seats);
+        this.shoe = shoe;
+        this.rules = rules;
+        this.dealerTable = rules.dealerTable();
+        this.maxHands = rules.maxHands();
+        this.doubleAfterSplit = rules.doubleAfterSplit();
+        this.surrender = rules.surrender();
+        this.insurance = rules.insurance();
+
+        this.dealer = new FastHand();
+        this.hands = new FastHand[seats][Math.max(2, maxHands)];
+        for (int i = 0; i < seats; i++) {
+            for (int j = 0; j < hands[i].length; j++) hands[i][j] = new FastHand();
+        }
+        this.handCount = new int[seats];
+        this.handBets = new int[seats][hands[0].length];
+        this.insured = new int[seats];
+        this.surrendered = new boolean[seats];
+        this.strategy = strategy;
+        this.betSize = betSize;
+        this.stats = new SimulationStats(seats);
+    }
+
+    // plays one round, shuffling first if the cut card has come out
+    void playRound() {
+        if (shoe.pastCutCard()) shoe.shuffle();
+        dealer.clear();
+        dealer.add(shoe.deal());
+        dealer.add(shoe.deal());
+        int dealerPoints = Cards.points(dealer.card(0));
+
+        for (int i = 0; i < hands.length; i++) {
+            playSeat(i, dealerPoints);
+        }
+        settle();
+        if (Metrics.ENABLED) Metrics.ROUNDS.increment();
+    }
+
+    // the players' side of the round for one seat, as in playBlackjack
+    private void playSeat(int i, int dealerPoints) {
+        FastHand hand = hands[i][0];
+        hand.clear();
+        hand.add(shoe.deal());
+        hand.add(shoe.deal());
+        handCount[i] = 1;
+        handBets[i][0] = betSize;
+        insured[i] = 0;
+        surrendered[i] = false;
+
+        // insurance is half the bet, against the dealer turning over a blackjack
+        if (insurance && dealerPoints == 1 && strategy.insurance(hand.total(), hand.soft())) {
+            insured[i] = betSize / 2;
+        }
+        // a pair the strategy splits is split, not surrendered: 8,8 against a ten reads as a hard 16
+        boolean pair = Cards.value(hand.card(0)) == Cards.value(hand.card(1));
+        if (surrender && !(pair && maxHands > 1 && strategy.split(Cards.value(hand.card(0)), dealerPoints))
+                && strategy.surrender(hand.total(), hand.soft(), dealerPoints)) {
+            surrendered[i] = true;
+            return;
+        }
+
+        if (pair) {
+            // split, and split again while the new first card pairs up and the rules allow more hands
+            for (int j = 0; j < handCount[i]; j++) {
+                hand = hands[i][j];
+                while (handCount[i] < maxHands && Cards.value(hand.card(0)) == Cards.value(hand.card(1))
+                        && strategy.split(Cards.value(hand.card(0)), dealerPoints) && canAfford(i, betSize)) {
+                    FastHand next = hands[i][handCount[i]];
+                    next.clear();
+                    next.add(hand.removeLast());
+                    hand.add(shoe.deal());
+                    next.add(shoe.deal());
+                    handBets[i][handCount[i]] = betSize;
+                    handCount[i]++;
+                    if (Metrics.ENABLED) Metrics.SPLITS.increment();
+                }
+            }
+        }
+        // no doubling down on a pair
+        else if (strategy.doubleDown(hand.total(), hand.soft(), dealerPoints)) {
+            handBets[i][0] += Math.min(betSize, SimulationStats.BANKROLL - betSize);
+            hand.add(shoe.deal());
+            if (Metrics.ENABLED) countDoubleDown(hand);
+            return;
+        }
+
+        for (int j = 0; j < handCount[i]; j++) {
+            hand = hands[i][j];
+            if (hand.total() == 21) continue;
+            if (handCount[i] > 1 && doubleAfterSplit && strategy.doubleDown(hand.total(), hand.soft(), dealerPoints)) {
+                handBets[i][j] += Math.min(handBets[i][j], SimulationStats.BANKROLL - totalBet(i));
+                hand.add(shoe.deal());
+                if (Metrics.ENABLED) countDoubleDown(hand);
+                continue;
+            }
+            while (strategy.hit(hand.total(), hand.soft(), dealerPoints)) {
+                hand.add(shoe.deal());
+                if (hand.busted()) {
+                    if (Metrics.ENABLED) Metrics.BUSTS.increment();
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void countDoubleDown(FastHand hand) {
+        Metrics.DOUBLE_DOWNS.increment();
+        if (hand.busted()) Metrics.BUSTS.increment();
+    }
+
+    // what a seat has wagered on all their hands
+    private int totalBet(int i) {
+        int total = 0;
+        for (int j = 0; j < handCount[i]; j++) total += handBets[i][j];
+        return total;
+    }
+
+    // whether a seat has the bankroll to put another amount on the table
+    private boolean canAfford(int i, int amount) {
+        return totalBet(i) + amount <= SimulationStats.BANKROLL;
+    }
+
+    // plays the dealer's hand and settles every seat, as in determineWinners.
+    // the dealer only draws once some hand is still live
+    private void settle() {
+        boolean dealerPlayed = false;
+        for (int i = 0; i < hands.length; i++) {
+            int result = 0;
+            if (insured[i] > 0) result += dealer.blackjack() ? 2 * insured[i] : -insured[i];
+
+            if (surrendered[i]) {
+                // late surrender: a dealer blackjack still takes the whole bet
+                result -= dealer.blackjack() ? betSize : betSize / 2;
+                stats.record(i, betSize, result);
+                continue;
+            }
+
+            for (int j = 0; j < handCount[i]; j++) {
+                FastHand hand = hands[i][j];
+                int bet = handBets[i][j];
+                if (hand.blackjack()) {
+                    if (!dealer.blackjack()) result += rules.blackjackPayout(bet);
+                    continue;
+                }
+                if (hand.busted()) {
+                    result -= bet;
+                    continue;
+                }
+                if (!dealerPlayed) {
+                    while (dealerTable.hits(dealer.total(), dealer.soft())) dealer.add(shoe.deal());
+                    dealerPlayed = true;
+                }
+                if (dealer.busted() || hand.total() > dealer.total()) result += bet;
+                else if (hand.total() < dealer.total()) result -= bet;
+            }
+            stats.record(i, totalBet(i), result);
+        }
+    }
+
+    // plays the given amount of rounds, timing how long they take
+    SimulationStats run(long rounds) {
+        long start = System.nanoTime();
+        for (long r = 0; r < rounds; r++) {
+            playRound();
+        }
+        stats.addRounds(rounds);
+        stats.addTime(System.nanoTime() - start);
+        return stats;
+    }
+
+    // plays rounds in batches until every seat's house edge is known to within precision of
+    // one opening bet, 19 times in 20, or until maxRounds have been played, whichever comes first
+    SimulationStats runUntil(double precision, long maxRounds) {
+        long played = 0;
+        while (played < maxRounds) {
+            long batch = Math.min(HouseEdge.BATCH_ROUNDS, maxRounds - played);
+            run(batch);
+            played += batch;
+            if (stats.precise(precision * betSize)) break;
+        }
+        return stats;
+    }
+
+    // the wager every seat opens with
+    int getBetSize() {
+        return betSize;
+    }
+
+    // what each seat has won and lost so far
+    SimulationStats getStats() {
+        return stats;
+    }
+
+    // usage: java FastSimulation [rounds] [seats] [seed] [decks] [penetration] [rules]
+    // one deck at a penetration of 0 shuffles before every round, like the console game.
+    // rules are written the way RuleSet.parse reads them, the house rules by default
+    public static void main(String[] args) {
+        long rounds = args.length > 0 ? Long.parseLong(args[0]) : 10000000;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int decks = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        double penetration = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        RuleSet rules = args.length > 5 ? RuleSet.parse(args[5]) : RuleSet.HOUSE;
+        if (seats <= 0 || seats > rules.seats()) {
+            System.out.println("Please enter a valid amount. The house only has up to " + rules.seats() + " seats");
+            return;
+        }
+
+        Shoe shoe = new Shoe(decks, penetration, seed);
+        FastSimulation simulation = new FastSimulation(seats, new BasicStrategy(rules, 10), 10, shoe, rules);
+        Metrics.start(System.out, 10);
+        simulation.run(rounds).report(System.out);
+        if (Metrics.ENABLED) Metrics.report(System.out);
+    }
+
+} // end class FastSimulation
@@ -0,0 +1,185 @@
+package blackjack;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+
+// the things that happen during a round that someone may want to see.
+// playBlackjack and determineWinners report to one of these instead of printing, and
+// pass the hands and cards themselves, so text is only built by a sink that prints it
+interface GameEvents {
+
+    // a seat is about to bet
+    void seatStarted(int seat, Player user);
+
+    // the player is shown their hand and the dealer's face up card
+    void handShown(Hand hand, Card dealerCard);
+
+    // the player split hand from, whose second card is now the first card of hand to.
+    // hand from is dealt its new second card next, then hand to
+    void split(Player user, int from, int to);
+
+    // the player asked to split but can't afford to
+    void splitRefused(Player user);
+
+    // the player doubled down and took their one card
+    void doubledDown(Hand hand);
+
+    // the player is about to play one of their hands
+    void handStarted(Hand hand);
+
+    // the hand is already 21, so there is nothing to decide
+    void alreadyTwentyOne(Hand hand);
+
+    // the player took another card
+    void hit(Hand hand);
+
+    // the player stood
+    void stood(Hand hand);
+
+    // the player is done with one of their hands
+    void handFinished(Hand hand);
+
+    // every seat is done and the dealer is about to play out their hand
+    void dealerStarted(Hand dealerHand);
+
+    // the dealer has played and every bet has been settled
+    void roundSettled(ArrayList<Player> table, Player dealer, RoundResult result);
+
+} // end interface GameEvents
+
+
+
+// prints every event the way the console game always has
+class TextEvents implements GameEvents {
+    protected final PrintStream out; // where the game is printed
+
+    public TextEvents(PrintStream out) {
+        this.out = out;
+    }
+
+    public void seatStarted(int seat, Player user) {
+        out.println("Hello, player " + seat + " your wealth is " + user.getMoney());
+    }
+
+    public void handShown(Hand hand, Card dealerCard) {
+        out.println("Your cards are: " + hand.handCards());
+        out.println("Your total is " + hand.handValue());
+        out.println("Dealer is showing " + dealerCard.asString());
+    }
+
+    public void split(Player user, int from, int to) {
+        out.println("Split. Make decisions for each of your hands seperately");
+    }
+
+    public void splitRefused(Player user) {
+        out.println("No option to split for you, you can't afford it!");
+    }
+
+    public void doubledDown(Hand hand) {
+        out.println("You've hit.");
+        out.println("Your total is now " + hand.handValue());
+
+        // it is possible that they have busted now with their third
+        if (hand.getBusted()) out.println("You busted!");
+        out.println();
+    }
+
+    public void handStarted(Hand hand) {
+        out.println();
+    }
+
+    public void alreadyTwentyOne(Hand hand) {
+        out.println("your total is already 21, thus, you have no decisions to make \n");
+    }
+
+    public void hit(Hand hand) {
+        out.println("You've hit.");
+        out.println("Your total is now " + hand.handValue());
+        if (hand.getBusted()) out.println("You busted! \n");
+        else out.println();
+    }
+
+    public void stood(Hand hand) {
+        out.println();
+    }
+
+    public void handFinished(Hand hand) {
+        out.println("-----");
+    }
+
+    // the dealer's hand is printed with the results
+    public void dealerStarted(Hand dealerHand) {
+    }
+
+    public void roundSettled(ArrayList<Player> table, Player dealer, RoundResult result) {
+        Settlement.print(table, dealer, result, out);
+    }
+
+} // end class TextEvents
+
+
+
+// prints like TextEvents, but into a large buffer that is written out once a round is settled.
+// for scripted tables and replays, where no one is waiting on a prompt
+class BufferedEvents extends TextEvents {
+
+    public BufferedEvents(OutputStream out) {
+        super(new PrintStream(new BufferedOutputStream(out, 1 << 16), false));
+    }
+
+    public void roundSettled(ArrayList<Player> table, Player dealer, RoundResult result) {
+        super.roundSettled(table, dealer, result);
+        out.flush();
+    }
+
+} // end class BufferedEvents
+
+
+
+// ignores every event, for simulations
+class NoEvents implements GameEvents {
+    static final NoEvents INSTANCE = new NoEvents();
+
+    private NoEvents() {
+    }
+
+    public void seatStarted(int seat, Player user) {
+    }
+
+    public void handShown(Hand hand, Card dealerCard) {
+    }
+
+    public void split(Player user, int from, int to) {
+    }
+
+    public void splitRefused(Player user) {
+    }
+
+    public void doubledDown(Hand hand) {
+    }
+
+    public void handStarted(Hand hand) {
+    }
+
+    public void alreadyTwentyOne(Hand hand) {
+    }
+
+    public void hit(Hand hand) {
+    }
+
+    public void stood(Hand hand) {
+    }
+
+    public void handFinished(Hand hand) {
+    }
+
+    public void dealerStarted(Hand dealerHand) {
+    }
+
+    public void roundSettled(ArrayList<Player> table, Player dealer, RoundResult result) {
+    }
+
+} // end class NoEvents
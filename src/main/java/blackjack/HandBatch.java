@@ -0,0 +1,131 @@
+package blackjack;
+
+import java.util.Arrays;
+
+
+// class HandBatch holds many hands side by side, for working out all their totals in one pass.
+// the points of every hand's first card come first, then every hand's second card, and so on,
+// so adding up the hands reads each row straight through, a row of hands at a time.
+// an ace is stored as 1 point and an empty place as 0, which adds nothing
+class HandBatch {
+    private final int capacity; // the most hands the batch holds, and the length of each row
+    private final byte[] points; // the points of card i of hand h at i * capacity + h
+    private final byte[] sizes; // the number of cards in each hand
+    private int hands; // the number of hands in use
+    private int maxCards; // the most cards in any hand, the rows that have to be added
+
+    public HandBatch(int capacity) {
+        this.capacity = capacity;
+        this.points = new byte[FastHand.CAPACITY * capacity];
+        this.sizes = new byte[capacity];
+    }
+
+    // starts a new empty hand, returning its index
+    int addHand() {
+        if (hands == capacity)
+            throw new IllegalStateException("the batch only holds " + capacity + " hands");
+        return hands++;
+    }
+
+    // adds a card to the given hand
+    void add(int hand, int card) {
+        int size = sizes[hand];
+        points[size * capacity + hand] = (byte) Cards.points(card);
+        sizes[hand] = (byte) ++size;
+        if (size > maxCards) maxCards = size;
+    }
+
+    // starts a new hand holding the same cards as the given one, returning its index
+    int addHand(FastHand hand) {
+        int h = addHand();
+        for (int i = 0; i < hand.size(); i++) add(h, hand.card(i));
+        return h;
+    }
+
+    // empties the batch, only clearing the rows that were used
+    void clear() {
+        Arrays.fill(points, 0, maxCards * capacity, (byte) 0);
+        Arrays.fill(sizes, 0, hands, (byte) 0);
+        hands = 0;
+        maxCards = 0;
+    }
+
+    int hands() {
+        return hands;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int maxCards() {
+        return maxCards;
+    }
+
+    // the rows of points, read by the evaluators
+    byte[] points() {
+        return points;
+    }
+
+    // the number of cards in the given hand
+    int size(int hand) {
+        return sizes[hand];
+    }
+
+} // end class HandBatch
+
+
+
+// works out the total of every hand in a HandBatch at once, the same totals Hand.handValue()
+// and FastHand.total() give: one ace counted as 11 when that doesn't bust the hand
+interface HandTotals {
+
+    // fills totals and soft with each hand's total and whether an ace is counted as 11 in it
+    void totals(HandBatch batch, byte[] totals, boolean[] soft);
+
+    // the Vector API evaluator when the JVM was started with --add-modules jdk.incubator.vector
+    // and the vector classes are on the class path, and ScalarTotals everywhere else
+    static HandTotals fastest() {
+        try {
+            return (HandTotals) Class.forName("blackjack.VectorTotals").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarTotals();
+        }
+    }
+
+} // end interface HandTotals
+
+
+
+// adds the batch up one hand at a time within each row, the fallback when there's no Vector API
+class ScalarTotals implements HandTotals {
+
+    public void totals(HandBatch batch, byte[] totals, boolean[] soft) {
+        totals(batch, totals, soft, 0, batch.hands());
+    }
+
+    // the totals of hands from up to but not including to, so the vector evaluator can
+    // finish off the hands left over after its last full row of lanes
+    static void totals(HandBatch batch, byte[] totals, boolean[] soft, int from, int to) {
+        byte[] points = batch.points();
+        int capacity = batch.capacity();
+        for (int h = from; h < to; h++) {
+            totals[h] = 0;
+            soft[h] = false;
+        }
+        // soft holds whether the hand has an ace until the totals are known
+        for (int row = 0; row < batch.maxCards(); row++) {
+            int start = row * capacity;
+            for (int h = from; h < to; h++) {
+                byte card = points[start + h];
+                totals[h] += card;
+                soft[h] |= card == 1;
+            }
+        }
+        for (int h = from; h < to; h++) {
+            soft[h] = soft[h] && totals[h] <= 11;
+            if (soft[h]) totals[h] += 10;
+        }
+    }
+
+} // end class ScalarTotals
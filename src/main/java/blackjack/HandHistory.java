@@ -0,0 +1,365 @@
+package blackjack;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+// class HandHistory describes the binary hand history log: every round, every card dealt,
+// every decision and every settled hand, one fixed-width record each.
+// a record is RECORD_SIZE bytes, little endian:
+//     byte type, byte seat, byte hand, byte code, int a, int b, int c
+// what code, a, b and c hold depends on the type, see the record types below
+final class HandHistory {
+    static final int RECORD_SIZE = 16;
+
+    static final byte ROUND = 1; // a round starts: a is the round number
+    static final byte CARD = 2; // a card was dealt: code is its card code, as in Cards
+    static final byte DECISION = 3; // a player decided: code is the decision, a the amount if any
+    static final byte DEALER = 4; // the dealer finished: a is their total, b their starting cards
+    static final byte SETTLED = 5; // a hand was settled: code is the outcome, a the bet, b the amount won, c the total
+    static final byte SPLIT_HAND = 6; // a pair was split: hand is the hand split, code the card moved, a the new hand
+
+    // decision codes
+    static final byte BET = 0;
+    static final byte SPLIT = 1;
+    static final byte NO_SPLIT = 2;
+    static final byte DOUBLE_DOWN = 3;
+    static final byte NO_DOUBLE_DOWN = 4;
+    static final byte DOUBLE_DOWN_AMOUNT = 5;
+    static final byte HIT = 6;
+    static final byte STAND = 7;
+
+    static final byte NO_SEAT = -1; // for records that don't belong to a seat
+
+    private HandHistory() {
+    }
+
+    // usage: java HandHistory record <file> [rounds] [seats] [seed] [rules]
+    //        java HandHistory replay <file>
+    // record simulates rounds into a log. replay scans one, rebuilds every hand and the dealer's
+    // from their cards to check them against the totals settled, and re-settles it with
+    // blackjack paying 6:5
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: HandHistory record <file> [rounds] [seats] [seed] [rules] | replay <file>");
+            return;
+        }
+        Path file = Paths.get(args[1]);
+
+        if (args[0].equals("record")) {
+            long rounds = args.length > 2 ? Long.parseLong(args[2]) : 100000;
+            int seats = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+            long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+            RuleSet rules = args.length > 5 ? RuleSet.parse(args[5]) : RuleSet.HOUSE;
+            try (HandHistoryWriter history = new HandHistoryWriter(file)) {
+                Simulation simulation = new Simulation(seats, new BasicStrategy(rules, 10), seed, rules);
+                simulation.record(history);
+                simulation.run(rounds).report(System.out);
+            }
+            return;
+        }
+
+        long start = System.nanoTime();
+        long rounds = 0;
+        long cards = 0;
+        long decisions = 0;
+        long wagered = 0;
+        long net = 0;
+        long sixToFive = 0;
+        long splits = 0;
+        long wrongTotals = 0; // hands and dealers whose cards don't add up to the total settled
+
+        // every hand in the round rebuilt from its cards, the dealer's after the last seat's
+        int[][] hard = new int[RuleSet.MAX_SEATS + 1][RuleSet.MAX_HANDS]; // totals with aces as 1
+        int[][] aces = new int[RuleSet.MAX_SEATS + 1][RuleSet.MAX_HANDS];
+        try (HandHistoryReader reader = new HandHistoryReader(file)) {
+            while (reader.next()) {
+                int seat = reader.seat() == NO_SEAT ? RuleSet.MAX_SEATS : reader.seat();
+                switch (reader.type()) {
+                    case ROUND:
+                        rounds++;
+                        for (int[] row : hard) Arrays.fill(row, 0);
+                        for (int[] row : aces) Arrays.fill(row, 0);
+                        break;
+                    case CARD:
+                        cards++;
+                        hard[seat][reader.hand()] += Cards.points(reader.code());
+                        if (Cards.isAce(reader.code())) aces[seat][reader.hand()]++;
+                        break;
+                    case SPLIT_HAND:
+                        splits++;
+                        hard[seat][reader.hand()] -= Cards.points(reader.code());
+                        hard[seat][reader.a()] += Cards.points(reader.code());
+                        if (Cards.isAce(reader.code())) {
+                            aces[seat][reader.hand()]--;
+                            aces[seat][reader.a()]++;
+                        }
+                        break;
+                    case DECISION: decisions++; break;
+                    case DEALER:
+                        if (total(hard[seat][0], aces[seat][0]) != reader.a()) wrongTotals++;
+                        break;
+                    case SETTLED:
+                        if (total(hard[seat][reader.hand()], aces[seat][reader.hand()]) != reader.c()) wrongTotals++;
+                        wagered += reader.a();
+                        net += reader.b();
+                        // the same hand with blackjack paying 6:5 instead of 3:2
+                        sixToFive += reader.code() == RoundResult.BLACKJACK ? reader.a() * 6 / 5 : reader.b();
+                        break;
+                    default: break;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%d rounds, %d cards, %d decisions read in %.3f s%n", rounds, cards, decisions, elapsed / 1e9);
+        System.out.printf("%d splits, %d totals that don't match the cards dealt%n", splits, wrongTotals);
+        System.out.printf("wagered %d, net %d (EV %+.4f), at 6:5 net %d (EV %+.4f)%n",
+            wagered, net, (double) net / wagered, sixToFive, (double) sixToFive / wagered);
+    }
+
+    // what a hand of the given hard total counts as, an ace as 11 when that doesn't bust it
+    private static int total(int hard, int aces) {
+        return aces > 0 && hard <= 11 ? hard + 10 : hard;
+    }
+
+} // end class HandHistory
+
+
+
+// writes a hand history log as a table is played.
+// it is told about cards by the Deck, decisions by wrapping the table's PlayerStrategy,
+// and settlements as the table's GameEvents.
+// a card is filed under the hand being played, except the two cards dealt after a split,
+// which go to the hand split and then to the new hand, as GameEvents.split says
+class HandHistoryWriter implements GameEvents, DealListener, Closeable {
+    private final FileChannel channel; // the log file
+    private final ByteBuffer buffer; // records waiting to be written
+    private int seat = HandHistory.NO_SEAT; // the seat currently playing
+    private Player player; // the player in that seat
+    private int hand; // the hand the seat is currently playing
+    private int splitHand; // the hand the last split made
+    private int splitCards; // the cards still to be dealt for the last split, 2 straight after it
+
+    public HandHistoryWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(4096 * HandHistory.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // marks the start of a round
+    void roundStarted(int round) {
+        seat = HandHistory.NO_SEAT;
+        write(HandHistory.ROUND, HandHistory.NO_SEAT, 0, 0, round, 0, 0);
+    }
+
+    public void dealt(Card card) {
+        int to = splitCards == 1 ? splitHand : hand;
+        if (splitCards > 0) splitCards--;
+        write(HandHistory.CARD, seat, to, Cards.of(card.getSuit(), card.getValue()), 0, 0, 0);
+    }
+
+    // a strategy that makes the same decisions as the given one, and records them here
+    PlayerStrategy recording(PlayerStrategy strategy) {
+        return new PlayerStrategy() {
+            public int bet(Player user) {
+                int bet = strategy.bet(user);
+                decision(0, HandHistory.BET, bet);
+                return bet;
+            }
+
+            public boolean split(Player user, Hand hand, Card dealerCard) {
+                boolean split = strategy.split(user, hand, dealerCard);
+                decision(user.indexOf(hand), split ? HandHistory.SPLIT : HandHistory.NO_SPLIT, 0);
+                return split;
+            }
+
+            public boolean doubleDown(Player user, Hand hand, Card dealerCard) {
+                boolean doubleDown = strategy.doubleDown(user, hand, dealerCard);
+                decision(user.indexOf(hand), doubleDown ? HandHistory.DOUBLE_DOWN : HandHistory.NO_DOUBLE_DOWN, 0);
+                return doubleDown;
+            }
+
+            public int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize) {
+                int increase = strategy.doubleDownAmount(user, hand, dealerCard, betSize);
+                decision(user.indexOf(hand), HandHistory.DOUBLE_DOWN_AMOUNT, increase);
+                return increase;
+            }
+
+            public boolean hit(Player user, Hand hand, Card dealerCard) {
+                boolean hit = strategy.hit(user, hand, dealerCard);
+                decision(user.indexOf(hand), hit ? HandHistory.HIT : HandHistory.STAND, 0);
+                return hit;
+            }
+        };
+    }
+
+    // a decision about the hand at the given index of the seat's hands
+    private void decision(int hand, byte code, int amount) {
+        write(HandHistory.DECISION, seat, hand, code, amount, 0, 0);
+    }
+
+    public void seatStarted(int seat, Player user) {
+        this.seat = seat;
+        this.player = user;
+        this.hand = 0;
+    }
+
+    public void handShown(Hand hand, Card dealerCard) {
+    }
+
+    // the moved card is recorded once, and the next two cards dealt are filed under each hand
+    public void split(Player user, int from, int to) {
+        Card moved = user.getHand(to).getCard(0);
+        write(HandHistory.SPLIT_HAND, seat, from, Cards.of(moved.getSuit(), moved.getValue()), to, 0, 0);
+        hand = from;
+        splitHand = to;
+        splitCards = 2;
+    }
+
+    public void splitRefused(Player user) {
+    }
+
+    public void doubledDown(Hand hand) {
+    }
+
+    public void handStarted(Hand hand) {
+        this.hand = player.indexOf(hand);
+    }
+
+    public void alreadyTwentyOne(Hand hand) {
+    }
+
+    public void hit(Hand hand) {
+    }
+
+    public void stood(Hand hand) {
+    }
+
+    public void handFinished(Hand hand) {
+    }
+
+    // the cards the dealer draws belong to no seat
+    public void dealerStarted(Hand dealerHand) {
+        seat = HandHistory.NO_SEAT;
+        hand = 0;
+    }
+
+    public void roundSettled(ArrayList<Player> table, Player dealer, RoundResult result) {
+        write(HandHistory.DEALER, HandHistory.NO_SEAT, 0, 0, result.dealerTotal(), result.dealerCards(), 0);
+        for (int k = 0; k < result.size(); k++) {
+            write(HandHistory.SETTLED, result.seat(k), result.hand(k), result.outcome(k),
+                result.bet(k), result.amount(k), result.total(k));
+        }
+        seat = HandHistory.NO_SEAT;
+    }
+
+    private void write(byte type, int seat, int hand, int code, int a, int b, int c) {
+        if (buffer.remaining() < HandHistory.RECORD_SIZE) flush();
+        buffer.put(type).put((byte) seat).put((byte) hand).put((byte) code).putInt(a).putInt(b).putInt(c);
+    }
+
+    // writes every buffered record to the file
+    void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+} // end class HandHistoryWriter
+
+
+
+// reads a hand history log one record at a time, straight out of the memory mapped file.
+// files bigger than one mapping are mapped a window at a time
+class HandHistoryReader implements Closeable {
+    // the largest window that is a whole number of records and fits one mapping
+    private static final long WINDOW = Integer.MAX_VALUE / HandHistory.RECORD_SIZE * (long) HandHistory.RECORD_SIZE;
+
+    private final FileChannel channel; // the log file
+    private final long size; // the file's length in bytes
+    private long windowStart; // where in the file the current window starts
+    private MappedByteBuffer window; // the part of the file being read
+    private int position = -HandHistory.RECORD_SIZE; // where the current record starts in the window
+
+    public HandHistoryReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size() / HandHistory.RECORD_SIZE * HandHistory.RECORD_SIZE;
+        map(0);
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        position = -HandHistory.RECORD_SIZE;
+    }
+
+    // moves to the next record, false once there are none left
+    boolean next() throws IOException {
+        position += HandHistory.RECORD_SIZE;
+        if (position >= window.limit()) {
+            long next = windowStart + window.limit();
+            if (next >= size) return false;
+            map(next);
+            position = 0;
+        }
+        return true;
+    }
+
+    // the number of records in the file
+    long records() {
+        return size / HandHistory.RECORD_SIZE;
+    }
+
+    byte type() {
+        return window.get(position);
+    }
+
+    int seat() {
+        return window.get(position + 1);
+    }
+
+    int hand() {
+        return window.get(position + 2);
+    }
+
+    int code() {
+        return window.get(position + 3);
+    }
+
+    int a() {
+        return window.getInt(position + 4);
+    }
+
+    int b() {
+        return window.getInt(position + 8);
+    }
+
+    int c() {
+        return window.getInt(position + 12);
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+} // end class HandHistoryReader
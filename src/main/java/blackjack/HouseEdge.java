@@ -0,0 +1,88 @@
+package blackjack;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+// class HouseEdge measures the house edge of one or more rule sets by simulation, stopping each
+// one as soon as its edge is known to the precision asked for rather than after a fixed number of rounds.
+// every worker thread plays its own FastSimulation in batches and merges each batch's results
+// into the shared totals, then starts its own totals again, so the totals only ever hold a
+// count and four moments per seat however long the run goes on
+class HouseEdge {
+    static final long BATCH_ROUNDS = 10000; // rounds a worker plays between checks
+    static final long MAX_ROUNDS = 1000000000L; // the most rounds one rule set is given
+
+    private final int seats; // seats at every simulated table
+    private final int decks; // decks in every worker's shoe
+    private final double penetration; // how far into the shoe the cut card goes
+    private final int betSize; // every seat's opening bet
+
+    public HouseEdge(int seats, int decks, double penetration, int betSize) {
+        this.seats = seats;
+        this.decks = decks;
+        this.penetration = penetration;
+        this.betSize = betSize;
+    }
+
+    // plays the rules on the given number of threads until every seat's edge is known to within
+    // precision of one opening bet, 19 times in 20, and returns the merged results
+    SimulationStats measure(RuleSet rules, double precision, int workers, long seed) throws InterruptedException {
+        SimulationStats total = new SimulationStats(seats);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        boolean[] done = new boolean[1]; // set under the lock on total once the edge is known
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            Shoe shoe = new Shoe(decks, penetration, seeds.nextLong());
+            FastSimulation simulation = new FastSimulation(seats, new BasicStrategy(rules, betSize), betSize, shoe, rules);
+            threads[i] = new Thread(() -> {
+                SimulationStats batch = simulation.getStats();
+                while (true) {
+                    simulation.run(BATCH_ROUNDS);
+                    synchronized (total) {
+                        if (done[0]) return;
+                        total.merge(batch);
+                        done[0] = total.precise(precision * betSize) || total.getRounds() >= MAX_ROUNDS;
+                        if (done[0]) return;
+                    }
+                    batch.reset();
+                }
+            }, "house-edge-" + i);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        total.addTime(System.nanoTime() - start);
+        return total;
+    }
+
+    // usage: java HouseEdge [precision] [threads] [decks] [penetration] [seed] [rules...]
+    // precision is a fraction of the opening bet, 0.001 for the edge to within 0.1%.
+    // every rule set is written the way RuleSet.parse reads it and measured in turn, the house rules by default
+    public static void main(String[] args) throws InterruptedException {
+        double precision = args.length > 0 ? Double.parseDouble(args[0]) : 0.001;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int decks = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+        double penetration = args.length > 3 ? Double.parseDouble(args[3]) : 0.75;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        String[] rules = args.length > 5 ? Arrays.copyOfRange(args, 5, args.length)
+            : new String[] {RuleSet.HOUSE.toString()};
+
+        HouseEdge houseEdge = new HouseEdge(1, decks, penetration, 10);
+        System.out.println("seed " + seed + ", " + workers + " workers, " + decks + " decks, precision " + precision);
+        for (String text : rules) {
+            RuleSet ruleSet = RuleSet.parse(text);
+            long start = System.nanoTime();
+            SimulationStats stats = houseEdge.measure(ruleSet, precision, workers, seed);
+            RunningStats results = stats.getResults(0);
+            System.out.printf("%s: house edge %+.4f%% +/- %.4f%% of the bet after %d rounds in %.1f s"
+                + " (sd %.3f, skewness %+.3f, kurtosis %+.3f)%n",
+                ruleSet, -100 * results.mean() / houseEdge.betSize,
+                100 * results.halfWidth(SimulationStats.Z) / houseEdge.betSize, stats.getRounds(),
+                (System.nanoTime() - start) / 1e9,
+                results.standardDeviation() / houseEdge.betSize, results.skewness(), results.kurtosis());
+        }
+    }
+
+} // end class HouseEdge
@@ -0,0 +1,117 @@
+package blackjack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+// class LoadClient fills a TableServer with bots that answer every prompt straight away:
+// bet 10 or whatever is left, never split or double down, always stand.
+// every bot has its own connection and thread, and reconnects whenever the server seats it out
+class LoadClient {
+    private final String host; // where the server is
+    private final int port; // the server's port
+    private volatile boolean stopped; // set once the run is over
+
+    private final LongAdder hands = new LongAdder(); // bets placed, one per seat per round
+    private final LongAdder answers = new LongAdder(); // answers sent
+    private final LongAdder waitNanos = new LongAdder(); // time from an answer to the next prompt
+    private final LongAdder slowWaits = new LongAdder(); // waits over a millisecond
+    private final AtomicLong maxWaitNanos = new AtomicLong(); // the longest wait
+
+    public LoadClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    // plays at one seat until the run is over
+    void bot() {
+        while (!stopped) {
+            try (Socket socket = new Socket(host, port)) {
+                socket.setTcpNoDelay(true);
+                play(socket);
+            } catch (IOException e) {
+                // the server turned the seat away or dropped it, sit down again
+            }
+        }
+    }
+
+    private void play(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        OutputStream out = socket.getOutputStream();
+        long answered = 0; // when the last answer was sent, 0 before the first
+        int wealth = 0; // what the last seat to be greeted has, which is this one when asked to bet
+        String line;
+        while (!stopped && (line = in.readLine()) != null) {
+            String answer;
+            if (line.startsWith("Hello, player ")) {
+                wealth = Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+                continue;
+            }
+            if (line.startsWith(">>> How much would you like to bet?")) {
+                answer = Integer.toString(Math.min(10, wealth));
+                hands.increment();
+            }
+            else if (line.startsWith("Would you like to split?")) answer = "no";
+            else if (line.startsWith(">>> Would you like to double down?")) answer = "no";
+            else if (line.startsWith(">>> Hit (hit) or stand (stand)?")) answer = "stand";
+            else continue;
+
+            long now = System.nanoTime();
+            if (answered != 0) {
+                long wait = now - answered;
+                waitNanos.add(wait);
+                if (wait > TableServer.SLOW_SETTLE_NANOS) slowWaits.increment();
+                maxWaitNanos.accumulateAndGet(wait, Math::max);
+            }
+            out.write((answer + "\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            answered = System.nanoTime();
+            answers.increment();
+        }
+    }
+
+    // prints the totals since the last report, and starts counting again
+    void report(long elapsedNanos) {
+        long bets = hands.sumThenReset();
+        long sent = answers.sumThenReset();
+        long nanos = waitNanos.sumThenReset();
+        long slow = slowWaits.sumThenReset();
+        long max = maxWaitNanos.getAndSet(0);
+        System.out.printf("%.0f hands/sec, %.0f answers/sec, next prompt mean %.1f us, max %.1f ms, %d over 1 ms%n",
+            bets * 1e9 / elapsedNanos, sent * 1e9 / elapsedNanos, sent == 0 ? 0 : nanos / 1e3 / sent, max / 1e6, slow);
+    }
+
+    // usage: java LoadClient [seats] [seconds] [host] [port]
+    public static void main(String[] args) throws InterruptedException {
+        int seats = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        String host = args.length > 2 ? args[2] : "localhost";
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : TableServer.DEFAULT_PORT;
+
+        LoadClient client = new LoadClient(host, port);
+        ExecutorService bots = TableServer.newThreadPerTaskExecutor();
+        for (int i = 0; i < seats; i++) {
+            bots.execute(client::bot);
+        }
+
+        long last = System.nanoTime();
+        for (int s = 5; s <= seconds; s += 5) {
+            Thread.sleep(5000);
+            long now = System.nanoTime();
+            client.report(now - last);
+            last = now;
+        }
+
+        // bots blocked on a read won't notice, so don't wait for them
+        client.stopped = true;
+        System.exit(0);
+    }
+
+} // end class LoadClient
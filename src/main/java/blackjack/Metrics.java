@@ -0,0 +1,263 @@
+package blackjack;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+// class Metrics counts what the game does and times the phases of a round, for every table in the JVM.
+// metrics are off unless the JVM is started with -Dblackjack.metrics=true. ENABLED is a constant,
+// so with metrics off the JIT drops every "if (Metrics.ENABLED)" and the game pays nothing for them.
+// the counters are LongAdders and the histograms are lock free, so tables on many threads
+// record into them without waiting on each other
+final class Metrics {
+    static final boolean ENABLED = Boolean.getBoolean("blackjack.metrics");
+
+    static final LongAdder ROUNDS = new LongAdder(); // rounds settled
+    static final LongAdder DEALS = new LongAdder(); // cards dealt from every Deck and Shoe
+    static final LongAdder SHUFFLES = new LongAdder(); // shuffles of every Deck and Shoe
+    static final LongAdder SPLITS = new LongAdder(); // pairs split
+    static final LongAdder DOUBLE_DOWNS = new LongAdder(); // hands doubled down
+    static final LongAdder BUSTS = new LongAdder(); // player hands that went over 21
+
+    static final LatencyHistogram BET = new LatencyHistogram(); // asking a seat for their bet
+    static final LatencyHistogram DECISION = new LatencyHistogram(); // asking to split, double, hit or stand
+    static final LatencyHistogram DEALER = new LatencyHistogram(); // playing the dealer's hand
+    static final LatencyHistogram SETTLEMENT = new LatencyHistogram(); // paying and collecting bets
+
+    private static boolean started; // whether start has been called
+
+    private Metrics() {
+    }
+
+    // a strategy that makes the same decisions as the given one, timing each of them
+    static PlayerStrategy timed(PlayerStrategy strategy) {
+        return new PlayerStrategy() {
+            public int bet(Player user) {
+                long start = System.nanoTime();
+                int bet = strategy.bet(user);
+                BET.record(System.nanoTime() - start);
+                return bet;
+            }
+
+            public boolean split(Player user, Hand hand, Card dealerCard) {
+                long start = System.nanoTime();
+                boolean split = strategy.split(user, hand, dealerCard);
+                DECISION.record(System.nanoTime() - start);
+                return split;
+            }
+
+            public boolean doubleDown(Player user, Hand hand, Card dealerCard) {
+                long start = System.nanoTime();
+                boolean doubleDown = strategy.doubleDown(user, hand, dealerCard);
+                DECISION.record(System.nanoTime() - start);
+                return doubleDown;
+            }
+
+            public int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize) {
+                long start = System.nanoTime();
+                int increase = strategy.doubleDownAmount(user, hand, dealerCard, betSize);
+                DECISION.record(System.nanoTime() - start);
+                return increase;
+            }
+
+            public boolean hit(Player user, Hand hand, Card dealerCard) {
+                long start = System.nanoTime();
+                boolean hit = strategy.hit(user, hand, dealerCard);
+                DECISION.record(System.nanoTime() - start);
+                return hit;
+            }
+        };
+    }
+
+    // if metrics are on, shows them over JMX and prints them every period seconds.
+    // does nothing the second time, or when metrics are off
+    static synchronized void start(PrintStream out, long periodSeconds) {
+        if (!ENABLED || started) return;
+        started = true;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(),
+                new ObjectName("blackjack:type=Metrics"));
+        } catch (JMException e) {
+            out.println("metrics are not on JMX: " + e);
+        }
+
+        Thread dump = new Thread(() -> {
+            long lastRounds = ROUNDS.sum();
+            long last = System.nanoTime();
+            while (true) {
+                try {
+                    Thread.sleep(periodSeconds * 1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long rounds = ROUNDS.sum();
+                long now = System.nanoTime();
+                out.printf("metrics: %.0f rounds/sec%n", (rounds - lastRounds) * 1e9 / (now - last));
+                report(out);
+                lastRounds = rounds;
+                last = now;
+            }
+        }, "metrics");
+        dump.setDaemon(true);
+        dump.start();
+    }
+
+    // prints every counter and histogram
+    static void report(PrintStream out) {
+        out.printf("metrics: %d rounds, %d deals, %d shuffles, %d splits, %d double downs, %d busts%n",
+            ROUNDS.sum(), DEALS.sum(), SHUFFLES.sum(), SPLITS.sum(), DOUBLE_DOWNS.sum(), BUSTS.sum());
+        BET.report(out, "bet");
+        DECISION.report(out, "decision");
+        DEALER.report(out, "dealer");
+        SETTLEMENT.report(out, "settlement");
+    }
+
+    static void reset() {
+        ROUNDS.reset();
+        DEALS.reset();
+        SHUFFLES.reset();
+        SPLITS.reset();
+        DOUBLE_DOWNS.reset();
+        BUSTS.reset();
+        BET.reset();
+        DECISION.reset();
+        DEALER.reset();
+        SETTLEMENT.reset();
+    }
+
+} // end class Metrics
+
+
+
+// the JMX view of Metrics
+class MetricsBean implements MetricsMXBean {
+
+    public long getRounds() {
+        return Metrics.ROUNDS.sum();
+    }
+
+    public long getDeals() {
+        return Metrics.DEALS.sum();
+    }
+
+    public long getShuffles() {
+        return Metrics.SHUFFLES.sum();
+    }
+
+    public long getSplits() {
+        return Metrics.SPLITS.sum();
+    }
+
+    public long getDoubleDowns() {
+        return Metrics.DOUBLE_DOWNS.sum();
+    }
+
+    public long getBusts() {
+        return Metrics.BUSTS.sum();
+    }
+
+    public Latency getBetLatency() {
+        return Metrics.BET.summary();
+    }
+
+    public Latency getDecisionLatency() {
+        return Metrics.DECISION.summary();
+    }
+
+    public Latency getDealerLatency() {
+        return Metrics.DEALER.summary();
+    }
+
+    public Latency getSettlementLatency() {
+        return Metrics.SETTLEMENT.summary();
+    }
+
+    public void reset() {
+        Metrics.reset();
+    }
+
+} // end class MetricsBean
+
+
+
+// a histogram of nanosecond latencies in the style of HdrHistogram: exact below 64 ns,
+// and above that 32 buckets for every power of two, so any value is known to within about 3%.
+// recording is one atomic increment, with no locks and nothing allocated
+class LatencyHistogram {
+    private static final int SUB_BITS = 5; // 2^SUB_BITS buckets for every power of two
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int LINEAR = SUB * 2; // values below this get a bucket each
+    private static final int BUCKETS = LINEAR + (63 - SUB_BITS - 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // values recorded in each bucket
+    private final LongAdder total = new LongAdder(); // the sum of every value recorded
+    private final AtomicLong max = new AtomicLong(); // the largest value recorded
+
+    // adds one latency in nanoseconds
+    void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        total.add(nanos);
+        if (nanos > max.get()) max.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static int bucket(long value) {
+        if (value < LINEAR) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return LINEAR + (exponent - SUB_BITS - 1) * SUB + (int) (value >>> (exponent - SUB_BITS)) - SUB;
+    }
+
+    // the smallest value that falls in the bucket
+    private static long lowest(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exponent = (bucket - LINEAR) / SUB + SUB_BITS + 1;
+        return (long) ((bucket - LINEAR) % SUB + SUB) << (exponent - SUB_BITS);
+    }
+
+    long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += counts.get(i);
+        return count;
+    }
+
+    // the latency the given fraction of values are at or below, in nanoseconds
+    long percentile(double fraction) {
+        long count = count();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(i + 1 < BUCKETS ? lowest(i + 1) - 1 : Long.MAX_VALUE, max.get());
+        }
+        return max.get();
+    }
+
+    // the histogram summed up, in microseconds
+    MetricsMXBean.Latency summary() {
+        long count = count();
+        return new MetricsMXBean.Latency(count, count == 0 ? 0 : total.sum() / 1e3 / count,
+            percentile(0.5) / 1e3, percentile(0.99) / 1e3, percentile(0.999) / 1e3, max.get() / 1e3);
+    }
+
+    // prints the summary on one line
+    void report(PrintStream out, String name) {
+        MetricsMXBean.Latency latency = summary();
+        out.printf("metrics: %-10s %d, mean %.2f us, p50 %.2f us, p99 %.2f us, p99.9 %.2f us, max %.2f us%n", name,
+            latency.getCount(), latency.getMean(), latency.getP50(), latency.getP99(), latency.getP999(),
+            latency.getMax());
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.reset();
+        max.set(0);
+    }
+
+} // end class LatencyHistogram
@@ -0,0 +1,77 @@
+package blackjack;
+
+// what Metrics shows over JMX, as blackjack:type=Metrics.
+// JMX only reads public interfaces, which is why this one is public
+public interface MetricsMXBean {
+
+    long getRounds();
+
+    long getDeals();
+
+    long getShuffles();
+
+    long getSplits();
+
+    long getDoubleDowns();
+
+    long getBusts();
+
+    // time spent asking each seat for their bet
+    Latency getBetLatency();
+
+    // time spent asking players to split, double down, hit or stand
+    Latency getDecisionLatency();
+
+    // time spent playing the dealer's hand
+    Latency getDealerLatency();
+
+    // time spent paying and collecting bets once the dealer is done
+    Latency getSettlementLatency();
+
+    // starts every counter and histogram from zero
+    void reset();
+
+    // a latency histogram summed up, in microseconds
+    class Latency {
+        private final long count;
+        private final double mean;
+        private final double p50;
+        private final double p99;
+        private final double p999;
+        private final double max;
+
+        public Latency(long count, double mean, double p50, double p99, double p999, double max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getP999() {
+            return p999;
+        }
+
+        public double getMax() {
+            return max;
+        }
+    }
+
+} // end interface MetricsMXBean
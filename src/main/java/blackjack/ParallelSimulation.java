@@ -0,0 +1,113 @@
+package blackjack;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+
+// class ParallelSimulation spreads simulated rounds over many threads.
+// every worker gets its own Simulation, and with it its own deck, dealer and table,
+// so nothing is shared until the results are merged at the end
+class ParallelSimulation {
+    static final long CHUNK_ROUNDS = 100000; // rounds a fork/join task plays without splitting again
+
+    private final int seats; // seats at every simulated table
+    private final Supplier<PlayerStrategy> strategies; // a fresh strategy for each worker
+    private final long seed; // every worker's seed is derived from this one
+
+    public ParallelSimulation(int seats, Supplier<PlayerStrategy> strategies, long seed) {
+        this.seats = seats;
+        this.strategies = strategies;
+        this.seed = seed;
+    }
+
+    // starts one thread per worker, each of which plays roundsPerWorker rounds at its own table.
+    // worker i is always seeded the same way, so the run is repeatable for a given worker count
+    SimulationStats runThreads(int workers, long roundsPerWorker) throws InterruptedException {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        Simulation[] simulations = new Simulation[workers];
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            Simulation simulation = new Simulation(seats, strategies.get(), seeds.nextLong());
+            simulations[i] = simulation;
+            threads[i] = new Thread(() -> simulation.run(roundsPerWorker), "simulation-" + i);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        long elapsed = System.nanoTime() - start;
+
+        SimulationStats total = new SimulationStats(seats);
+        for (Simulation simulation : simulations) {
+            total.merge(simulation.getStats());
+        }
+        total.addTime(elapsed);
+        return total;
+    }
+
+    // plays exactly totalRounds rounds, split into chunks across the pool.
+    // each chunk is seeded from where it starts, so the result does not depend on the pool size
+    SimulationStats runForkJoin(ForkJoinPool pool, long totalRounds) {
+        long start = System.nanoTime();
+        SimulationStats total = pool.invoke(new Chunk(0, totalRounds));
+        total.addTime(System.nanoTime() - start);
+        return total;
+    }
+
+    // a range of rounds [from, to) that is either played or split in half
+    private class Chunk extends RecursiveTask<SimulationStats> {
+        private static final long serialVersionUID = 1L; // never serialized, ForkJoinTask is Serializable
+        private final long from;
+        private final long to;
+
+        Chunk(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        protected SimulationStats compute() {
+            if (to - from <= CHUNK_ROUNDS) {
+                long chunkSeed = new SplittableRandom(seed + from).nextLong();
+                return new Simulation(seats, strategies.get(), chunkSeed).run(to - from);
+            }
+
+            long middle = from + (to - from) / 2;
+            Chunk left = new Chunk(from, middle);
+            left.fork();
+            SimulationStats right = new Chunk(middle, to).compute();
+            SimulationStats stats = left.join();
+            stats.merge(right);
+            return stats;
+        }
+    }
+
+    // usage: java ParallelSimulation [threads|forkjoin] [rounds] [seats] [workers] [seed]
+    // in threads mode every worker plays the given amount of rounds,
+    // in forkjoin mode the rounds are the total shared by the pool
+    public static void main(String[] args) throws InterruptedException {
+        String mode = args.length > 0 ? args[0] : "threads";
+        long rounds = args.length > 1 ? Long.parseLong(args[1]) : 1000000;
+        int seats = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        if (seats <= 0 || seats > RuleSet.HOUSE.seats()) {
+            System.out.println("Please enter a valid amount. The house only has up to " + RuleSet.HOUSE.seats() + " seats");
+            return;
+        }
+
+        ParallelSimulation simulation = new ParallelSimulation(seats, () -> new BasicStrategy(10), seed);
+        System.out.println("seed " + seed + ", " + workers + " workers");
+        Metrics.start(System.out, 10);
+        if (mode.equals("forkjoin")) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            simulation.runForkJoin(pool, rounds).report(System.out);
+            pool.shutdown();
+        } else {
+            simulation.runThreads(workers, rounds).report(System.out);
+        }
+        if (Metrics.ENABLED) Metrics.report(System.out);
+    }
+
+} // end class ParallelSimulation
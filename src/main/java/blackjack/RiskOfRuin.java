@@ -0,0 +1,391 @@
+package blackjack;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+// class RiskOfRuin follows millions of players' bankrolls through whole sessions, each betting the
+// same way, and reports how many go broke, how far their bankrolls fall from their highest point
+// and how long the broke ones lasted.
+// playing every round of every session would take hours, so the rounds are measured once into an
+// OutcomeTable and every session draws its rounds from that, one array lookup per round.
+// sessions are kept a column at a time, one primitive array per thing tracked with one entry per
+// session, so ten million sessions take about 170 MB and the rounds walk through memory in order.
+// the sessions are played a chunk at a time on a fork/join pool, every round of a chunk before
+// the next, so a chunk's columns stay in cache
+class RiskOfRuin {
+    static final int FLAT = 0; // the same bet every round
+    static final int KELLY = 1; // a fraction of the bankroll, in proportion to the edge at the true count
+    static final int MARTINGALE = 2; // double the bet after every loss, back to the unit after a win
+    static final String[] SYSTEM_NAMES = {"flat", "kelly", "martingale"};
+
+    static final int CHUNK_SESSIONS = 4096; // sessions a fork/join task plays without splitting again
+
+    private final OutcomeTable outcomes; // what a round can win or lose
+    private final int system; // how every session bets
+    private final int bankroll; // what every session starts with
+    private final int unit; // the table minimum, and the flat or opening bet
+    private final int tableMax; // the table maximum
+    private final double kellyFraction; // the fraction of a full Kelly bet KELLY makes
+    private final int rounds; // the most rounds in a session
+
+    // the sessions, one column each. a session is broke once its wealth is 0
+    private int[] wealth; // what each session has now
+    private int[] peak; // the most each session has had
+    private int[] drawdown; // the furthest each session has fallen below its peak
+    private int[] ruinedAt; // the round each session went broke, 0 if it hasn't
+    private byte[] losses; // the losses in a row each session has had, for MARTINGALE
+
+    public RiskOfRuin(OutcomeTable outcomes, int system, int bankroll, int unit, int tableMax,
+            double kellyFraction, int rounds) {
+        if (system < FLAT || system > MARTINGALE)
+            throw new IllegalArgumentException("no betting system " + system);
+        if (unit <= 0 || tableMax < unit || bankroll < unit)
+            throw new IllegalArgumentException("can't bet " + unit + " to " + tableMax + " from " + bankroll);
+        this.outcomes = outcomes;
+        this.system = system;
+        this.bankroll = bankroll;
+        this.unit = unit;
+        this.tableMax = tableMax;
+        this.kellyFraction = kellyFraction;
+        this.rounds = rounds;
+    }
+
+    // plays the given number of sessions on the pool.
+    // each chunk of sessions is seeded from where it starts, so the result does not depend on the pool size
+    void run(ForkJoinPool pool, int sessions, long seed) {
+        wealth = new int[sessions];
+        peak = new int[sessions];
+        drawdown = new int[sessions];
+        ruinedAt = new int[sessions];
+        losses = system == MARTINGALE ? new byte[sessions] : null;
+        pool.invoke(new Chunk(0, sessions, seed));
+    }
+
+    // a range of sessions [from, to) that is either played or split in half
+    private class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // never serialized, ForkJoinTask is Serializable
+        private final int from;
+        private final int to;
+        private final long seed;
+
+        Chunk(int from, int to, long seed) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        protected void compute() {
+            if (to - from <= CHUNK_SESSIONS) {
+                play(from, to, new SplittableRandom(seed + from));
+                return;
+            }
+            int middle = from + (to - from) / 2;
+            invokeAll(new Chunk(from, middle, seed), new Chunk(middle, to, seed));
+        }
+    }
+
+    // plays the sessions [from, to), a round of every session at a time
+    private void play(int from, int to, SplittableRandom random) {
+        Arrays.fill(wealth, from, to, bankroll);
+        Arrays.fill(peak, from, to, bankroll);
+
+        for (int round = 1; round <= rounds; round++) {
+            for (int s = from; s < to; s++) {
+                int w = wealth[s];
+                if (w == 0) continue;
+
+                // only Kelly bets by the count, the others draw straight from every count's outcomes
+                int bet;
+                int outcome;
+                if (system == KELLY) {
+                    int count = outcomes.sampleCount(random);
+                    bet = bet(s, w, count);
+                    outcome = outcomes.sampleOutcome(count, random);
+                } else {
+                    bet = bet(s, w, 0);
+                    outcome = outcomes.sampleOutcome(random);
+                }
+                int result = (int) ((long) bet * outcome / OutcomeTable.BET);
+
+                // a double down or split the session can't cover still costs everything it has left
+                w = Math.max(0, w + result);
+                wealth[s] = w;
+                if (w > peak[s]) peak[s] = w;
+                else if (peak[s] - w > drawdown[s]) drawdown[s] = peak[s] - w;
+                if (w == 0) ruinedAt[s] = round;
+
+                if (losses != null) {
+                    if (result < 0) losses[s] = (byte) Math.min(losses[s] + 1, 30);
+                    else if (result > 0) losses[s] = 0;
+                }
+            }
+        }
+    }
+
+    // what the session bets this round, at the given true count.
+    // never less than the table minimum unless that is more than it has left
+    private int bet(int s, int w, int count) {
+        int bet;
+        if (system == KELLY) bet = (int) (kellyFraction * outcomes.kelly(count) * w);
+        else if (system == MARTINGALE) bet = (int) Math.min((long) unit << losses[s], tableMax);
+        else bet = unit;
+        return Math.min(w, Math.max(unit, Math.min(tableMax, bet)));
+    }
+
+    // prints the risk of ruin, the time to ruin, the drawdowns and the final bankrolls.
+    // sorts the drawdown column, so it is the last thing to do with the sessions
+    void report(PrintStream out) {
+        int sessions = wealth.length;
+        RunningStats finals = new RunningStats();
+        long[] ruinedBy = new long[rounds + 1]; // sessions that went broke on each round
+        long ruined = 0;
+        for (int s = 0; s < sessions; s++) {
+            finals.add(wealth[s]);
+            if (ruinedAt[s] > 0) {
+                ruinedBy[ruinedAt[s]]++;
+                ruined++;
+            }
+        }
+
+        out.printf("%s betting, unit %d, max %d, bankroll %d, %d sessions of up to %d rounds%n",
+            SYSTEM_NAMES[system], unit, tableMax, bankroll, sessions, rounds);
+        out.printf("risk of ruin %.4f%% (%d sessions)%n", 100.0 * ruined / sessions, ruined);
+        if (ruined > 0) {
+            double meanRound = 0;
+            for (int round = 1; round <= rounds; round++) meanRound += (double) round * ruinedBy[round] / ruined;
+            out.printf("time to ruin: mean %.0f rounds, p10 %d, p50 %d, p90 %d%n", meanRound,
+                roundPercentile(ruinedBy, ruined, 0.1), roundPercentile(ruinedBy, ruined, 0.5),
+                roundPercentile(ruinedBy, ruined, 0.9));
+        }
+
+        RunningStats drawdowns = new RunningStats();
+        for (int s = 0; s < sessions; s++) drawdowns.add(drawdown[s]);
+        Arrays.parallelSort(drawdown);
+        out.printf("max drawdown: mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n", drawdowns.mean(),
+            drawdown[(int) (0.5 * (sessions - 1))], drawdown[(int) (0.9 * (sessions - 1))],
+            drawdown[(int) (0.99 * (sessions - 1))], drawdown[sessions - 1]);
+        out.printf("final bankroll: mean %.1f, sd %.1f, skewness %+.3f%n",
+            finals.mean(), finals.standardDeviation(), finals.skewness());
+    }
+
+    // the round by which the given fraction of the broke sessions had gone broke
+    private static int roundPercentile(long[] ruinedBy, long ruined, double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * ruined));
+        long seen = 0;
+        for (int round = 1; round < ruinedBy.length; round++) {
+            seen += ruinedBy[round];
+            if (seen >= rank) return round;
+        }
+        return ruinedBy.length - 1;
+    }
+
+    // usage: java RiskOfRuin [flat|kelly|martingale] [sessions] [rounds] [bankroll] [unit] [table max]
+    //                        [kelly fraction] [decks] [penetration] [measured rounds] [seed] [rules]
+    // the defaults are a seat at the console game's 1000 betting 10, for 1000 rounds at a six deck shoe
+    public static void main(String[] args) {
+        int system = Arrays.asList(SYSTEM_NAMES).indexOf(args.length > 0 ? args[0] : "flat");
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int bankroll = args.length > 3 ? Integer.parseInt(args[3]) : SimulationStats.BANKROLL;
+        int unit = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int tableMax = args.length > 5 ? Integer.parseInt(args[5]) : 500;
+        double kellyFraction = args.length > 6 ? Double.parseDouble(args[6]) : 0.5;
+        int decks = args.length > 7 ? Integer.parseInt(args[7]) : 6;
+        double penetration = args.length > 8 ? Double.parseDouble(args[8]) : 0.75;
+        long measured = args.length > 9 ? Long.parseLong(args[9]) : 2000000;
+        long seed = args.length > 10 ? Long.parseLong(args[10]) : System.nanoTime();
+        RuleSet rules = args.length > 11 ? RuleSet.parse(args[11]) : RuleSet.HOUSE;
+        if (system < 0) {
+            System.out.println("Please choose flat, kelly or martingale betting");
+            return;
+        }
+
+        long start = System.nanoTime();
+        OutcomeTable outcomes = OutcomeTable.measure(decks, penetration, rules, measured, seed);
+        System.out.printf("seed %d, %d rounds measured in %.1f s, %s%n", seed, measured,
+            (System.nanoTime() - start) / 1e9, outcomes);
+
+        start = System.nanoTime();
+        RiskOfRuin risk = new RiskOfRuin(outcomes, system, bankroll, unit, tableMax, kellyFraction, rounds);
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        risk.run(pool, sessions, seed);
+        pool.shutdown();
+        System.out.printf("%d sessions played in %.1f s%n", sessions, (System.nanoTime() - start) / 1e9);
+        risk.report(System.out);
+    }
+
+} // end class RiskOfRuin
+
+
+
+// what one round wins or loses for a seat playing basic strategy, measured by FastSimulation
+// and kept as a distribution for every Hi-Lo true count, along with how often each true count comes up.
+// outcomes are what a bet of BET wins, so 150 for a blackjack at 3:2 and -200 for a lost double down
+class OutcomeTable {
+    static final int BET = 100; // the bet outcomes are measured with
+    static final int MAX_COUNT = 10; // true counts further from 0 than this are counted as this
+
+    private final AliasTable counts; // how often each true count comes up, index 0 for -MAX_COUNT
+    private final AliasTable[] outcomes; // the outcomes at each true count
+    private final int[][] values; // the outcome each entry of those tables stands for
+    private final AliasTable anyCount; // the outcomes at every true count together
+    private final int[] anyCountValues; // the outcome each entry of that table stands for
+    private final double[] kelly; // the Kelly bet at each true count, as a fraction of the bankroll
+    private final RunningStats all = new RunningStats(); // every outcome measured, at every count
+
+    // frequencies of each outcome o at each count, kept at o + maxOutcome
+    private OutcomeTable(long[][] frequencies, int maxOutcome) {
+        int buckets = frequencies.length;
+        long[] countFrequencies = new long[buckets];
+        long[] anyCountFrequencies = new long[frequencies[0].length];
+        outcomes = new AliasTable[buckets];
+        values = new int[buckets][];
+        kelly = new double[buckets];
+
+        for (int b = 0; b < buckets; b++) {
+            RunningStats stats = new RunningStats();
+            int distinct = 0;
+            for (int o = 0; o < frequencies[b].length; o++) {
+                if (frequencies[b][o] > 0) distinct++;
+            }
+            values[b] = new int[distinct];
+            long[] weights = new long[distinct];
+            int k = 0;
+            for (int o = 0; o < frequencies[b].length; o++) {
+                long n = frequencies[b][o];
+                if (n == 0) continue;
+                values[b][k] = o - maxOutcome;
+                weights[k++] = n;
+                countFrequencies[b] += n;
+                anyCountFrequencies[o] += n;
+                stats.add((o - maxOutcome) / (double) BET, n);
+            }
+            all.merge(stats);
+            outcomes[b] = distinct == 0 ? null : new AliasTable(weights);
+            // the fraction of the bankroll that grows it fastest: the edge over the variance, nothing without an edge
+            kelly[b] = stats.variance() == 0 ? 0 : Math.max(0, stats.mean() / stats.variance());
+        }
+        counts = new AliasTable(countFrequencies);
+
+        int distinct = 0;
+        for (long n : anyCountFrequencies) {
+            if (n > 0) distinct++;
+        }
+        anyCountValues = new int[distinct];
+        long[] weights = new long[distinct];
+        int k = 0;
+        for (int o = 0; o < anyCountFrequencies.length; o++) {
+            if (anyCountFrequencies[o] == 0) continue;
+            anyCountValues[k] = o - maxOutcome;
+            weights[k++] = anyCountFrequencies[o];
+        }
+        anyCount = new AliasTable(weights);
+    }
+
+    // the most a round can win or lose under the given rules: every hand split off and doubled,
+    // or paid as a blackjack at whatever blackjack pays, as split aces and tens are, plus the insurance
+    static int maxOutcome(RuleSet rules) {
+        return RuleSet.MAX_HANDS * Math.max(2 * BET, rules.blackjackPayout(BET)) + BET;
+    }
+
+    // plays the given number of rounds at one seat and keeps the outcome of every one
+    static OutcomeTable measure(int decks, double penetration, RuleSet rules, long rounds, long seed) {
+        Shoe shoe = new Shoe(decks, penetration, seed);
+        FastSimulation simulation = new FastSimulation(1, new BasicStrategy(rules, BET), BET, shoe, rules);
+        CountSnapshot snapshot = new CountSnapshot();
+        int maxOutcome = maxOutcome(rules);
+        long[][] frequencies = new long[2 * MAX_COUNT + 1][2 * maxOutcome + 1];
+
+        for (long r = 0; r < rounds; r++) {
+            // shuffle here rather than in playRound, so the count is the one the round is dealt at
+            if (shoe.pastCutCard()) shoe.shuffle();
+            shoe.snapshot(snapshot);
+            int count = (int) Math.floor(snapshot.trueCount(ShoeCount.HI_LO));
+            count = Math.max(-MAX_COUNT, Math.min(MAX_COUNT, count));
+
+            long before = simulation.getStats().getNet(0);
+            simulation.playRound();
+            int outcome = (int) (simulation.getStats().getNet(0) - before);
+            frequencies[count + MAX_COUNT][outcome + maxOutcome]++;
+        }
+        return new OutcomeTable(frequencies, maxOutcome);
+    }
+
+    // a true count, as often as it came up in the measured rounds
+    int sampleCount(SplittableRandom random) {
+        return counts.sample(random) - MAX_COUNT;
+    }
+
+    // what a bet of BET wins in a round at the given true count, as often as it did in the measured rounds
+    int sampleOutcome(int count, SplittableRandom random) {
+        int b = count + MAX_COUNT;
+        return values[b][outcomes[b].sample(random)];
+    }
+
+    // what a bet of BET wins in a round at any count, as often as it did in the measured rounds
+    int sampleOutcome(SplittableRandom random) {
+        return anyCountValues[anyCount.sample(random)];
+    }
+
+    // the Kelly bet at the given true count, as a fraction of the bankroll
+    double kelly(int count) {
+        return kelly[count + MAX_COUNT];
+    }
+
+    public String toString() {
+        return String.format("EV %+.4f, sd %.3f per unit bet", all.mean(), all.standardDeviation());
+    }
+
+} // end class OutcomeTable
+
+
+
+// Walker's alias method: picks an index with probability in proportion to its weight,
+// in the same time however many indexes there are, with one random int and one random double
+class AliasTable {
+    private final double[] probability; // the chance an index keeps its own pick
+    private final int[] alias; // the index picked instead when it doesn't
+
+    public AliasTable(long[] weights) {
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+        long total = 0;
+        for (long weight : weights) total += weight;
+        if (total == 0) throw new IllegalArgumentException("an alias table needs some weight");
+
+        // scaled so the average is 1, then small ones are topped up from large ones
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smalls = 0;
+        int larges = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (double) weights[i] * n / total;
+            if (scaled[i] < 1) small[smalls++] = i;
+            else large[larges++] = i;
+        }
+        while (smalls > 0 && larges > 0) {
+            int less = small[--smalls];
+            int more = large[--larges];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) small[smalls++] = more;
+            else large[larges++] = more;
+        }
+        // whatever is left is 1, give or take rounding
+        while (larges > 0) probability[large[--larges]] = 1;
+        while (smalls > 0) probability[small[--smalls]] = 1;
+    }
+
+    int sample(SplittableRandom random) {
+        int i = random.nextInt(probability.length);
+        return random.nextDouble() < probability[i] ? i : alias[i];
+    }
+
+} // end class AliasTable
@@ -0,0 +1,156 @@
+package blackjack;
+
+// class RuleSet is the house rules a table is dealt under.
+// a rule set never changes; each with method returns a new one.
+// the rules are worked out into plain fields and lookup tables when the rule set is made,
+// so the tables that play by it never test an option in the middle of a hand:
+// the dealer's draw is one array lookup, and a blackjack is paid with one multiply and divide.
+//
+// a rule set is written as a list of options, the house rules being
+//     s17,splits=2,3:2,seats=7
+// where the options are
+//     s17 or h17       the dealer stands or hits on soft 17
+//     das              double down after splitting
+//     splits=N         the most hands a player can split into, 1 for no splitting
+//     surrender        late surrender: half the bet back, unless the dealer has blackjack
+//     3:2 or 6:5       what a blackjack pays
+//     insurance        insurance against a dealer ace, paying 2:1
+//     seats=N          the most seats at a table
+final class RuleSet {
+    static final int MAX_HANDS = 4; // the most hands any rule set lets a player split into
+    static final int MAX_SEATS = 7; // the most seats any table has
+
+    // this game's rules: stand on all 17s, one split, no doubling after it, blackjack pays 3:2
+    static final RuleSet HOUSE = new RuleSet(false, false, 2, false, 3, 2, false, MAX_SEATS);
+
+    private final boolean hitSoft17; // whether the dealer hits a soft 17
+    private final boolean doubleAfterSplit; // whether split hands can double down
+    private final int maxHands; // the most hands one seat can split into
+    private final boolean surrender; // whether late surrender is offered
+    private final int blackjackWins; // a blackjack wins blackjackWins for every blackjackStakes bet
+    private final int blackjackStakes;
+    private final boolean insurance; // whether insurance is offered against a dealer ace
+    private final int seats; // the most seats at a table
+
+    private RuleSet(boolean hitSoft17, boolean doubleAfterSplit, int maxHands, boolean surrender,
+            int blackjackWins, int blackjackStakes, boolean insurance, int seats) {
+        if (maxHands < 1 || maxHands > MAX_HANDS)
+            throw new IllegalArgumentException("a player can split into 1 to " + MAX_HANDS + " hands, not " + maxHands);
+        if (seats < 1 || seats > MAX_SEATS)
+            throw new IllegalArgumentException("The house only has up to " + MAX_SEATS + " seats, not " + seats);
+        if (blackjackWins <= 0 || blackjackStakes <= 0)
+            throw new IllegalArgumentException("blackjack must pay something, not " + blackjackWins + ":" + blackjackStakes);
+        this.hitSoft17 = hitSoft17;
+        this.doubleAfterSplit = doubleAfterSplit;
+        this.maxHands = maxHands;
+        this.surrender = surrender;
+        this.blackjackWins = blackjackWins;
+        this.blackjackStakes = blackjackStakes;
+        this.insurance = insurance;
+        this.seats = seats;
+    }
+
+    RuleSet withHitSoft17(boolean value) {
+        return new RuleSet(value, doubleAfterSplit, maxHands, surrender, blackjackWins, blackjackStakes, insurance, seats);
+    }
+
+    RuleSet withDoubleAfterSplit(boolean value) {
+        return new RuleSet(hitSoft17, value, maxHands, surrender, blackjackWins, blackjackStakes, insurance, seats);
+    }
+
+    RuleSet withMaxHands(int value) {
+        return new RuleSet(hitSoft17, doubleAfterSplit, value, surrender, blackjackWins, blackjackStakes, insurance, seats);
+    }
+
+    RuleSet withSurrender(boolean value) {
+        return new RuleSet(hitSoft17, doubleAfterSplit, maxHands, value, blackjackWins, blackjackStakes, insurance, seats);
+    }
+
+    // a blackjack wins the given amount for every stakes bet, 3:2 or 6:5
+    RuleSet withBlackjackPays(int wins, int stakes) {
+        return new RuleSet(hitSoft17, doubleAfterSplit, maxHands, surrender, wins, stakes, insurance, seats);
+    }
+
+    RuleSet withInsurance(boolean value) {
+        return new RuleSet(hitSoft17, doubleAfterSplit, maxHands, surrender, blackjackWins, blackjackStakes, value, seats);
+    }
+
+    RuleSet withSeats(int value) {
+        return new RuleSet(hitSoft17, doubleAfterSplit, maxHands, surrender, blackjackWins, blackjackStakes, insurance, value);
+    }
+
+    // reads a rule set written the way the class comment shows, starting from the house rules.
+    // options that aren't given keep the house rule
+    static RuleSet parse(String text) {
+        RuleSet rules = HOUSE;
+        for (String option : text.toLowerCase().split(",")) {
+            option = option.trim();
+            if (option.isEmpty()) continue;
+            if (option.equals("s17")) rules = rules.withHitSoft17(false);
+            else if (option.equals("h17")) rules = rules.withHitSoft17(true);
+            else if (option.equals("das")) rules = rules.withDoubleAfterSplit(true);
+            else if (option.startsWith("splits=")) rules = rules.withMaxHands(Integer.parseInt(option.substring(7)));
+            else if (option.equals("surrender")) rules = rules.withSurrender(true);
+            else if (option.equals("insurance")) rules = rules.withInsurance(true);
+            else if (option.startsWith("seats=")) rules = rules.withSeats(Integer.parseInt(option.substring(6)));
+            else if (option.matches("\\d+:\\d+")) {
+                String[] pays = option.split(":");
+                rules = rules.withBlackjackPays(Integer.parseInt(pays[0]), Integer.parseInt(pays[1]));
+            }
+            else throw new IllegalArgumentException("unknown rule " + option + " in " + text);
+        }
+        return rules;
+    }
+
+    // the dealer's play under these rules, as a table of hand states
+    DealerTable dealerTable() {
+        return DealerTable.of(hitSoft17);
+    }
+
+    // what a blackjack wins on the given bet, rounded down
+    int blackjackPayout(int bet) {
+        return bet * blackjackWins / blackjackStakes;
+    }
+
+    // what a blackjack wins for every unit bet, 1.5 at 3:2
+    double blackjackPays() {
+        return (double) blackjackWins / blackjackStakes;
+    }
+
+    boolean hitSoft17() {
+        return hitSoft17;
+    }
+
+    boolean doubleAfterSplit() {
+        return doubleAfterSplit;
+    }
+
+    int maxHands() {
+        return maxHands;
+    }
+
+    boolean surrender() {
+        return surrender;
+    }
+
+    boolean insurance() {
+        return insurance;
+    }
+
+    int seats() {
+        return seats;
+    }
+
+    // the rule set written the way parse reads it
+    public String toString() {
+        StringBuilder text = new StringBuilder(hitSoft17 ? "h17" : "s17");
+        if (doubleAfterSplit) text.append(",das");
+        text.append(",splits=").append(maxHands);
+        if (surrender) text.append(",surrender");
+        text.append(',').append(blackjackWins).append(':').append(blackjackStakes);
+        if (insurance) text.append(",insurance");
+        text.append(",seats=").append(seats);
+        return text.toString();
+    }
+
+} // end class RuleSet
@@ -0,0 +1,111 @@
+package blackjack;
+
+// class RunningStats keeps the mean, variance, skewness and kurtosis of a stream of results
+// without keeping the results, using Welford's online update extended to the third and fourth
+// moments. two of them can be merged, so tables on separate threads can each keep their own
+// and add them up at the end, and the memory used is the same after ten rounds or ten billion
+class RunningStats {
+    private long count; // results seen
+    private double mean; // their mean
+    private double m2; // sum of squared differences from the mean
+    private double m3; // sum of cubed differences from the mean
+    private double m4; // sum of differences from the mean to the fourth power
+
+    // adds one result
+    void add(double x) {
+        long n1 = count;
+        count++;
+        double delta = x - mean;
+        double deltaN = delta / count;
+        double deltaN2 = deltaN * deltaN;
+        double term = delta * deltaN * n1;
+        mean += deltaN;
+        m4 += term * deltaN2 * ((double) count * count - 3 * count + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+        m3 += term * deltaN * (count - 2) - 3 * deltaN * m2;
+        m2 += term;
+    }
+
+    // adds the same result the given number of times, as cheaply as adding it once
+    void add(double x, long times) {
+        if (times <= 0) return;
+        RunningStats same = new RunningStats();
+        same.count = times;
+        same.mean = x;
+        merge(same);
+    }
+
+    // adds every result the other one has seen, as if they had been added here
+    void merge(RunningStats other) {
+        if (other.count == 0) return;
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            m2 = other.m2;
+            m3 = other.m3;
+            m4 = other.m4;
+            return;
+        }
+
+        double a = count;
+        double b = other.count;
+        double n = a + b;
+        double delta = other.mean - mean;
+        double delta2 = delta * delta;
+        double delta3 = delta2 * delta;
+        double delta4 = delta2 * delta2;
+
+        double mergedM4 = m4 + other.m4 + delta4 * a * b * (a * a - a * b + b * b) / (n * n * n)
+            + 6 * delta2 * (a * a * other.m2 + b * b * m2) / (n * n) + 4 * delta * (a * other.m3 - b * m3) / n;
+        double mergedM3 = m3 + other.m3 + delta3 * a * b * (a - b) / (n * n) + 3 * delta * (a * other.m2 - b * m2) / n;
+        m2 = m2 + other.m2 + delta2 * a * b / n;
+        m3 = mergedM3;
+        m4 = mergedM4;
+        mean += delta * b / n;
+        count += other.count;
+    }
+
+    void reset() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        m3 = 0;
+        m4 = 0;
+    }
+
+    long count() {
+        return count;
+    }
+
+    double mean() {
+        return mean;
+    }
+
+    // the sample variance
+    double variance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    // how far the mean is likely to be from the true mean
+    double standardError() {
+        return count == 0 ? 0 : Math.sqrt(variance() / count);
+    }
+
+    // half the width of the confidence interval around the mean, z standard errors either side
+    double halfWidth(double z) {
+        return z * standardError();
+    }
+
+    double skewness() {
+        return m2 == 0 ? 0 : Math.sqrt(count) * m3 / Math.pow(m2, 1.5);
+    }
+
+    // the excess kurtosis, 0 for a normal distribution
+    double kurtosis() {
+        return m2 == 0 ? 0 : count * m4 / (m2 * m2) - 3;
+    }
+
+} // end class RunningStats
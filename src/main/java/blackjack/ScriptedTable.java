@@ -0,0 +1,355 @@
+package blackjack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+// class ScriptedTable plays the console game from a script of answers instead of a keyboard,
+// with the deck shuffled from a seed, so the same script always prints the same game.
+// a script is the answers the console game would read, one per line, after a header:
+//     # seed 42
+//     # seats 2
+//     10
+//     no
+//     stand
+// blank lines and other lines starting with # are skipped. the table plays rounds until the
+// script runs out at the start of a round, or every player is broke.
+//
+// a corpus is a directory of .script files, each with the .golden transcript it printed when it
+// was recorded. check plays every script again on a pool of threads and diffs each transcript
+// against its golden one, so a change to the game shows up as the first line that moved
+class ScriptedTable {
+    static final String SCRIPT = ".script";
+    static final String GOLDEN = ".golden";
+
+    private ScriptedTable() {
+    }
+
+    // plays the script and returns everything the table printed
+    static String play(String script) {
+        long seed = header(script, "seed", 0);
+        int seats = (int) header(script, "seats", 1);
+        ScriptedStrategy answers = ScriptedStrategy.parse(script);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        play(seed, seats, answers, new BufferedEvents(out));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // plays rounds at a table of the given seats until the answers run out or no one can bet
+    static void play(long seed, int seats, PlayerStrategy strategy, GameEvents events, Stopping stopping) {
+        Deck deck = new Deck(new Random(seed));
+        Player dealer = new Player(deck);
+        ArrayList<Player> table = new ArrayList<Player>();
+        for (int i = 0; i < seats; i++) table.add(new Player(deck, i));
+
+        while (!table.isEmpty() && !stopping.stop()) {
+            deck.shuffle();
+            dealer.clearHands();
+            dealer.getHand(0).hit();
+            dealer.getHand(0).hit();
+            for (Player player : table) player.clearHands();
+
+            int[] bets = Blackjack.playBlackjack(table, dealer, strategy, events);
+            Blackjack.determineWinners(table, dealer, bets, events);
+
+            // players who can't afford another round leave, as in the console game
+            table.removeIf(player -> player.getMoney() <= 0);
+        }
+    }
+
+    private static void play(long seed, int seats, ScriptedStrategy answers, GameEvents events) {
+        play(seed, seats, answers, events, () -> answers.remaining() == 0);
+    }
+
+    // whether to stop before dealing another round
+    interface Stopping {
+        boolean stop();
+    }
+
+    // the value of a "# name value" header line, or the default if the script has none
+    static long header(String script, String name, long otherwise) {
+        for (String line : script.split("\n")) {
+            String[] words = line.trim().split("\\s+");
+            if (words.length == 3 && words[0].equals("#") && words[1].equals(name)) return Long.parseLong(words[2]);
+        }
+        return otherwise;
+    }
+
+    // writes a corpus of the given number of scripts into the directory, each a seeded table of one
+    // to three seats playing basic strategy for up to twenty rounds, with bets of 5 to 50
+    static void generate(Path directory, int sessions, long seed) throws IOException {
+        Files.createDirectories(directory);
+        Random random = new Random(seed);
+        for (int i = 0; i < sessions; i++) {
+            long sessionSeed = random.nextLong();
+            int seats = 1 + random.nextInt(3);
+            int rounds = 1 + random.nextInt(20);
+            Random bets = new Random(sessionSeed);
+            PlayerStrategy basic = new BasicStrategy(10) {
+                public int bet(Player user) {
+                    return Math.min(5 * (1 + bets.nextInt(10)), user.getMoney());
+                }
+            };
+
+            StringBuilder script = new StringBuilder();
+            script.append("# seed ").append(sessionSeed).append('\n');
+            script.append("# seats ").append(seats).append('\n');
+            ScriptRecorder recorder = new ScriptRecorder(basic, script);
+            int[] played = new int[1];
+            play(sessionSeed, seats, recorder, NoEvents.INSTANCE, () -> played[0]++ == rounds);
+            Files.write(directory.resolve(String.format("session-%05d%s", i, SCRIPT)),
+                script.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // plays every script in the directory on the given number of threads, and either writes each
+    // transcript as its golden one or compares it with the golden one. returns the scripts that differ
+    static List<String> run(Path directory, boolean record, int threads) throws IOException, InterruptedException {
+        List<Path> scripts = new ArrayList<Path>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SCRIPT)) {
+            for (Path file : files) scripts.add(file);
+        }
+        scripts.sort(null);
+
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        for (Path file : scripts) {
+            tasks.add(() -> {
+                String name = file.getFileName().toString();
+                Path golden = file.resolveSibling(name.substring(0, name.length() - SCRIPT.length()) + GOLDEN);
+                String transcript = play(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                if (record) {
+                    Files.write(golden, transcript.getBytes(StandardCharsets.UTF_8));
+                    return null;
+                }
+                if (!Files.exists(golden)) return name + ": no golden transcript";
+                return diff(name, new String(Files.readAllBytes(golden), StandardCharsets.UTF_8), transcript);
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<String> failures = new ArrayList<String>();
+        try {
+            for (Future<String> result : pool.invokeAll(tasks)) {
+                String failure = result.get();
+                if (failure != null) failures.add(failure);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("a script could not be played", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return failures;
+    }
+
+    // null if the transcripts are the same, otherwise the first line where they differ
+    static String diff(String name, String expected, String actual) {
+        if (expected.equals(actual)) return null;
+        String[] want = expected.split("\n", -1);
+        String[] got = actual.split("\n", -1);
+        int line = 0;
+        while (line < want.length && line < got.length && want[line].equals(got[line])) line++;
+        return String.format("%s: line %d%n  golden: %s%n  now:    %s", name, line + 1,
+            line < want.length ? want[line] : "(end)", line < got.length ? got[line] : "(end)");
+    }
+
+    // usage: java ScriptedTable play <script>
+    //        java ScriptedTable generate <directory> [sessions] [seed]
+    //        java ScriptedTable record|check <directory> [threads]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("usage: ScriptedTable play <script> | generate <directory> [sessions] [seed]"
+                + " | record <directory> [threads] | check <directory> [threads]");
+            return;
+        }
+        Path path = Paths.get(args[1]);
+
+        if (args[0].equals("play")) {
+            System.out.print(play(new String(Files.readAllBytes(path), StandardCharsets.UTF_8)));
+            return;
+        }
+        if (args[0].equals("generate")) {
+            int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+            long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+            generate(path, sessions, seed);
+            System.out.println(sessions + " scripts written to " + path);
+            return;
+        }
+
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        boolean record = args[0].equals("record");
+        long start = System.nanoTime();
+        List<String> failures = run(path, record, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (record) {
+            System.out.printf("golden transcripts recorded in %.2f s%n", seconds);
+            return;
+        }
+        for (String failure : failures) System.out.println(failure);
+        System.out.printf("%s in %.2f s%n", failures.isEmpty() ? "every transcript matches" : failures.size() + " differ",
+            seconds);
+        if (!failures.isEmpty()) System.exit(1);
+    }
+
+} // end class ScriptedTable
+
+
+
+// a PlayerStrategy that gives the answers of a script, parsed once into arrays, in the order
+// the table asks for them. an answer that doesn't fit the question is an error in the script,
+// where the console game would have asked again
+class ScriptedStrategy implements PlayerStrategy {
+    // the kinds of answer
+    static final byte AMOUNT = 0;
+    static final byte SPLIT = 1;
+    static final byte DOUBLE_DOWN = 2;
+    static final byte NO = 3;
+    static final byte HIT = 4;
+    static final byte STAND = 5;
+
+    private final byte[] kinds; // the kind of each answer
+    private final int[] amounts; // the amount of each AMOUNT answer
+    private final int[] lines; // the script line each answer is on, for errors
+    private int next; // the next answer to give
+
+    private ScriptedStrategy(byte[] kinds, int[] amounts, int[] lines) {
+        this.kinds = kinds;
+        this.amounts = amounts;
+        this.lines = lines;
+    }
+
+    // reads the answers of a script, skipping blank lines and lines starting with #
+    static ScriptedStrategy parse(String script) {
+        String[] text = script.split("\n");
+        byte[] kinds = new byte[text.length];
+        int[] amounts = new int[text.length];
+        int[] lines = new int[text.length];
+        int count = 0;
+        for (int i = 0; i < text.length; i++) {
+            String answer = text[i].trim();
+            if (answer.isEmpty() || answer.startsWith("#")) continue;
+            byte kind;
+            if (answer.equals("split")) kind = SPLIT;
+            else if (answer.equals("double down")) kind = DOUBLE_DOWN;
+            else if (answer.equals("no")) kind = NO;
+            else if (answer.equals("hit")) kind = HIT;
+            else if (answer.equals("stand")) kind = STAND;
+            else if (answer.matches("-?\\d+")) {
+                kind = AMOUNT;
+                amounts[count] = Integer.parseInt(answer);
+            }
+            else throw new IllegalArgumentException("line " + (i + 1) + ": not an answer: " + answer);
+            kinds[count] = kind;
+            lines[count] = i + 1;
+            count++;
+        }
+        return new ScriptedStrategy(Arrays.copyOf(kinds, count), Arrays.copyOf(amounts, count),
+            Arrays.copyOf(lines, count));
+    }
+
+    // answers not given yet
+    int remaining() {
+        return kinds.length - next;
+    }
+
+    // starts the answers again from the first
+    void rewind() {
+        next = 0;
+    }
+
+    // the next answer, which must be one of the two kinds the question allows
+    private int answer(String question, byte yes, byte no) {
+        if (next == kinds.length) throw new IllegalStateException("the script ran out when asked " + question);
+        byte kind = kinds[next];
+        if (kind != yes && kind != no)
+            throw new IllegalStateException("line " + lines[next] + ": not an answer to " + question);
+        return next++;
+    }
+
+    private int amount(String question, int lowest, int highest) {
+        int i = answer(question, AMOUNT, AMOUNT);
+        if (amounts[i] < lowest || amounts[i] > highest)
+            throw new IllegalStateException("line " + lines[i] + ": " + question + " must be " + lowest + " to " + highest);
+        return amounts[i];
+    }
+
+    public int bet(Player user) {
+        return amount("the bet", 0, user.getMoney());
+    }
+
+    public boolean split(Player user, Hand hand, Card dealerCard) {
+        return kinds[answer("split or no", SPLIT, NO)] == SPLIT;
+    }
+
+    public boolean doubleDown(Player user, Hand hand, Card dealerCard) {
+        return kinds[answer("double down or no", DOUBLE_DOWN, NO)] == DOUBLE_DOWN;
+    }
+
+    public int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize) {
+        return amount("the double down", 0, Math.min(betSize, user.getMoney() - betSize));
+    }
+
+    public boolean hit(Player user, Hand hand, Card dealerCard) {
+        return kinds[answer("hit or stand", HIT, STAND)] == HIT;
+    }
+
+} // end class ScriptedStrategy
+
+
+
+// makes the same decisions as another strategy, and writes each one down as the line
+// the console game would have read, so a run can be played again as a script
+class ScriptRecorder implements PlayerStrategy {
+    private final PlayerStrategy strategy; // makes the decisions
+    private final StringBuilder script; // where the answers are written
+
+    public ScriptRecorder(PlayerStrategy strategy, StringBuilder script) {
+        this.strategy = strategy;
+        this.script = script;
+    }
+
+    public int bet(Player user) {
+        int bet = strategy.bet(user);
+        script.append(bet).append('\n');
+        return bet;
+    }
+
+    public boolean split(Player user, Hand hand, Card dealerCard) {
+        boolean split = strategy.split(user, hand, dealerCard);
+        script.append(split ? "split\n" : "no\n");
+        return split;
+    }
+
+    public boolean doubleDown(Player user, Hand hand, Card dealerCard) {
+        boolean doubleDown = strategy.doubleDown(user, hand, dealerCard);
+        script.append(doubleDown ? "double down\n" : "no\n");
+        return doubleDown;
+    }
+
+    public int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize) {
+        int increase = strategy.doubleDownAmount(user, hand, dealerCard, betSize);
+        script.append(increase).append('\n');
+        return increase;
+    }
+
+    public boolean hit(Player user, Hand hand, Card dealerCard) {
+        boolean hit = strategy.hit(user, hand, dealerCard);
+        script.append(hit ? "hit\n" : "stand\n");
+        return hit;
+    }
+
+} // end class ScriptRecorder
@@ -0,0 +1,529 @@
+package blackjack;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+
+// class SessionStore keeps every player's bankroll and rounds on disk, so they outlive the program.
+// it is a directory of log segments and one snapshot:
+//  - log-N.bin holds frames of round records, each frame an int length and a CRC32C of its
+//    records, then the records: four little endian longs, player id, wager, result and balance
+//    after, all in cents. a record with no wager only sets the balance
+//  - snapshot.bin holds every player's balance, rounds, wagered and net, and the first log
+//    segment it doesn't include, followed by a CRC32C of the whole file
+// settling threads hand records over through a lock-free ring the way LedgerJournal does, and
+// one writer thread writes whatever is ready as one frame with one fsync, so a thousand rounds
+// settled together share a single fsync. sync waits for that fsync, for callers that must
+// not go on until a round is on disk.
+// every snapshotRecords records the writer starts a new segment and snapshots the totals, and
+// close snapshots once more, so opening the store reads the snapshot and replays at most one
+// segment's tail. a frame that was only half written when the program died fails its CRC
+// and is cut off. old segments are kept, they are the round history.
+// if a write fails the writer stops, and every append, sync and close after that throws,
+// rather than waiting for a writer that isn't there
+class SessionStore implements Closeable {
+    static final int RECORD_SIZE = 32;
+    static final int FRAME_HEADER = 8; // the frame's length and CRC
+    static final long MAGIC = 0x424a53455353494fL; // "BJSESSIO"
+    static final int SNAPSHOT_HEADER = 20; // the magic, the first segment not included and the player count
+    static final String SNAPSHOT = "snapshot.bin";
+
+    private final Path dir; // where the segments and the snapshot are
+    private final long snapshotRecords; // records written between snapshots
+
+    // the totals after every record written, kept by the writer thread
+    private long[] balance = new long[1024]; // each player's balance in cents
+    private long[] rounds = new long[1024]; // rounds each player has played
+    private long[] wagered = new long[1024]; // what each player has wagered in cents
+    private long[] net = new long[1024]; // what each player has won, negative if they lost
+    private int players; // one more than the highest player id seen
+
+    private long segment; // the log segment being written
+    private FileChannel log; // that segment's file
+    private long sinceSnapshot; // records written since the last snapshot
+
+    // the ring, as in LedgerJournal
+    private final int capacity; // slots in the ring, a power of two
+    private final int mask; // capacity - 1
+    private final AtomicLongArray ring; // five longs per slot: sequence + 1 once filled in, id, wager, result, balance
+    private final AtomicLong claimed = new AtomicLong(); // the next sequence to hand out
+    private final AtomicLong durable = new AtomicLong(); // every sequence below this is on disk
+    private final AtomicLong commits = new AtomicLong(); // the fsyncs done
+    private final ByteBuffer frame; // records on their way to the log
+    private final CRC32C crc = new CRC32C();
+    private final Thread writer; // drains the ring into the log
+    private volatile boolean closing; // set once no more records are coming
+    private volatile Throwable failure; // why the writer stopped, if it couldn't write
+
+    // opens the store in the given directory, creating it if needed, and recovers every player's
+    // totals from the snapshot and the log after it
+    public SessionStore(Path dir, int capacity, long snapshotRecords) throws IOException {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("store capacity must be a power of two, not " + capacity);
+        this.dir = dir;
+        this.snapshotRecords = snapshotRecords;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.ring = new AtomicLongArray(capacity * 5);
+        this.frame = ByteBuffer.allocateDirect(FRAME_HEADER + capacity * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        Files.createDirectories(dir);
+        recover();
+        this.writer = new Thread(this::drain, "session-store");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private Path segmentFile(long n) {
+        return dir.resolve("log-" + n + ".bin");
+    }
+
+    // reads the snapshot, replays every segment from the one it starts at, and opens the last
+    // one for writing, cut back to its last whole frame
+    private void recover() throws IOException {
+        segment = 0;
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) segment = readSnapshot(snapshot);
+
+        while (true) {
+            Path file = segmentFile(segment);
+            long end = Files.exists(file) ? replay(file) : 0;
+            boolean last = !Files.exists(segmentFile(segment + 1));
+            if (!last) {
+                if (end != Files.size(file))
+                    throw new IOException(file + " is damaged at byte " + end + " but later segments follow it");
+                segment++;
+                continue;
+            }
+            log = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            log.truncate(end);
+            log.position(end);
+            return;
+        }
+    }
+
+    // loads the totals from a snapshot, returning the first segment it doesn't include
+    private long readSnapshot(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < SNAPSHOT_HEADER + 4 || in.getLong() != MAGIC)
+            throw new IOException(file + " is not a session snapshot");
+        crc.reset();
+        crc.update(in.array(), 0, in.limit() - 4);
+        if ((int) crc.getValue() != in.getInt(in.limit() - 4))
+            throw new IOException(file + " fails its checksum");
+
+        long first = in.getLong();
+        int count = in.getInt();
+        grow(count);
+        for (int id = 0; id < count; id++) {
+            balance[id] = in.getLong();
+            rounds[id] = in.getLong();
+            wagered[id] = in.getLong();
+            net[id] = in.getLong();
+        }
+        players = count;
+        return first;
+    }
+
+    // applies every whole frame in a segment, returning where the last one ends
+    private long replay(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer records = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            records.order(ByteOrder.LITTLE_ENDIAN);
+            int end = 0;
+            while (records.remaining() >= FRAME_HEADER) {
+                int length = records.getInt();
+                int checksum = records.getInt();
+                if (length <= 0 || length % RECORD_SIZE != 0 || length > records.remaining()) break;
+                ByteBuffer body = records.slice().limit(length);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) break;
+                for (int i = 0; i < length; i += RECORD_SIZE) {
+                    apply((int) records.getLong(), records.getLong(), records.getLong(), records.getLong());
+                }
+                end = records.position();
+            }
+            return end;
+        }
+    }
+
+    // adds one record to the totals
+    private void apply(int id, long wager, long result, long after) {
+        if (id >= players) {
+            grow(id + 1);
+            players = id + 1;
+        }
+        balance[id] = after;
+        if (wager > 0) {
+            rounds[id]++;
+            wagered[id] += wager;
+            net[id] += result;
+        }
+    }
+
+    private void grow(int needed) {
+        if (needed <= balance.length) return;
+        int length = Math.max(needed, balance.length * 2);
+        balance = Arrays.copyOf(balance, length);
+        rounds = Arrays.copyOf(rounds, length);
+        wagered = Arrays.copyOf(wagered, length);
+        net = Arrays.copyOf(net, length);
+    }
+
+    // records a round, or a balance with no wager, and returns its sequence to pass to sync.
+    // waits only if the writer has fallen a whole ring behind
+    long append(int id, long wager, long result, long after) {
+        if (id < 0) throw new IllegalArgumentException("player ids start at 0, not " + id);
+        checkWriter();
+        long sequence = claimed.getAndIncrement();
+        while (sequence - durable.get() >= capacity) {
+            checkWriter();
+            Thread.yield();
+        }
+        int slot = (int) (sequence & mask) * 5;
+        ring.setPlain(slot + 1, id);
+        ring.setPlain(slot + 2, wager);
+        ring.setPlain(slot + 3, result);
+        ring.setPlain(slot + 4, after);
+        ring.setRelease(slot, sequence + 1);
+        return sequence;
+    }
+
+    // waits until the record with the given sequence, and every one before it, is on disk
+    void sync(long sequence) {
+        while (durable.get() <= sequence) {
+            checkWriter();
+            if (closing && !writer.isAlive())
+                throw new IllegalStateException("the session store closed before record " + sequence + " was written");
+            LockSupport.parkNanos(20000);
+        }
+    }
+
+    // throws the error that stopped the writer, if it has stopped
+    private void checkWriter() {
+        Throwable cause = failure;
+        if (cause != null) throw new IllegalStateException("the session store can't write any more", cause);
+    }
+
+    // writes records in sequence order as they are filled in, one frame and one fsync at a time,
+    // until closed and empty or until a write fails
+    private void drain() {
+        try {
+            drainRing();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+    }
+
+    private void drainRing() {
+        long next = 0;
+        while (true) {
+            frame.clear().position(FRAME_HEADER);
+            int slot = (int) (next & mask) * 5;
+            while (ring.getAcquire(slot) == next + 1 && frame.hasRemaining()) {
+                int id = (int) ring.getPlain(slot + 1);
+                long wager = ring.getPlain(slot + 2);
+                long result = ring.getPlain(slot + 3);
+                long after = ring.getPlain(slot + 4);
+                frame.putLong(id).putLong(wager).putLong(result).putLong(after);
+                next++;
+                slot = (int) (next & mask) * 5;
+            }
+            int length = frame.position() - FRAME_HEADER;
+            if (length > 0) {
+                commit(length);
+                applyFrame(length);
+                durable.set(next);
+                sinceSnapshot += length / RECORD_SIZE;
+                if (sinceSnapshot >= snapshotRecords) snapshot();
+            } else if (closing && next == claimed.get()) {
+                return;
+            } else {
+                LockSupport.parkNanos(50000);
+            }
+        }
+    }
+
+    // writes the frame being built and forces it to disk
+    private void commit(int length) {
+        frame.flip();
+        crc.reset();
+        crc.update(frame.duplicate().position(FRAME_HEADER));
+        frame.putInt(0, length).putInt(4, (int) crc.getValue());
+        try {
+            while (frame.hasRemaining()) log.write(frame);
+            log.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        commits.incrementAndGet();
+    }
+
+    // adds the records of the frame just written to the totals, which only ever hold what is on disk
+    private void applyFrame(int length) {
+        for (int i = FRAME_HEADER; i < FRAME_HEADER + length; i += RECORD_SIZE) {
+            apply((int) frame.getLong(i), frame.getLong(i + 8), frame.getLong(i + 16), frame.getLong(i + 24));
+        }
+    }
+
+    // starts a new segment and writes the totals as they stand into a new snapshot, which
+    // replaces the old one in a single rename, so there is always one whole snapshot on disk
+    private void snapshot() {
+        try {
+            long next = segment + 1;
+            FileChannel nextLog = FileChannel.open(segmentFile(next), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+            ByteBuffer out = ByteBuffer.allocate(SNAPSHOT_HEADER + players * RECORD_SIZE + 4).order(ByteOrder.LITTLE_ENDIAN);
+            out.putLong(MAGIC).putLong(next).putInt(players);
+            for (int id = 0; id < players; id++) {
+                out.putLong(balance[id]).putLong(rounds[id]).putLong(wagered[id]).putLong(net[id]);
+            }
+            crc.reset();
+            crc.update(out.array(), 0, out.position());
+            out.putInt((int) crc.getValue());
+            out.flip();
+
+            Path temporary = dir.resolve(SNAPSHOT + ".tmp");
+            try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) file.write(out);
+                file.force(true);
+            }
+            Files.move(temporary, dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+
+            log.close();
+            log = nextLog;
+            segment = next;
+            sinceSnapshot = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // makes the rename itself durable, where the file system lets a directory be forced
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // some platforms can't open a directory, the rename is as durable as they make it
+        }
+    }
+
+    // writes every record appended so far, snapshots the totals and closes the log.
+    // nothing may be appended once this has started. if the writer failed, nothing more is
+    // written and its failure is thrown
+    public void close() throws IOException {
+        closing = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable cause = failure;
+        if (cause != null) {
+            log.close();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            throw new IOException("the session store stopped writing", cause);
+        }
+        try {
+            if (sinceSnapshot > 0) snapshot();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.close();
+    }
+
+    // the totals are only read when nothing is being appended: straight after opening the store,
+    // or once it is closed
+
+    int players() {
+        return players;
+    }
+
+    long balance(int id) {
+        return id < players ? balance[id] : 0;
+    }
+
+    long rounds(int id) {
+        return id < players ? rounds[id] : 0;
+    }
+
+    long wagered(int id) {
+        return id < players ? wagered[id] : 0;
+    }
+
+    long net(int id) {
+        return id < players ? net[id] : 0;
+    }
+
+    long segment() {
+        return segment;
+    }
+
+    // the fsyncs done since the store was opened
+    long commits() {
+        return commits.get();
+    }
+
+    // the player's bankroll as the store last saw it, or opening cents for a new player or one
+    // who had nothing left, with id as its id so the rounds recording reports are filed under
+    // this player
+    Bankroll bankroll(int id, long opening) {
+        return new Bankroll(id, id < players && balance[id] > 0 ? balance[id] : opening, null);
+    }
+
+    // table events that do what the given ones do, and then record each seat's round here,
+    // filed under the id of the seat's Bankroll
+    GameEvents recording(GameEvents events) {
+        return new GameEvents() {
+            private final long[] wagers = new long[RuleSet.MAX_SEATS]; // what each seat wagered this round
+            private final long[] results = new long[RuleSet.MAX_SEATS]; // what each seat won this round
+
+            public void seatStarted(int seat, Player user) {
+                events.seatStarted(seat, user);
+            }
+
+            public void handShown(Hand hand, Card dealerCard) {
+                events.handShown(hand, dealerCard);
+            }
+
+            public void split(Player user, int from, int to) {
+                events.split(user, from, to);
+            }
+
+            public void splitRefused(Player user) {
+                events.splitRefused(user);
+            }
+
+            public void doubledDown(Hand hand) {
+                events.doubledDown(hand);
+            }
+
+            public void handStarted(Hand hand) {
+                events.handStarted(hand);
+            }
+
+            public void alreadyTwentyOne(Hand hand) {
+                events.alreadyTwentyOne(hand);
+            }
+
+            public void hit(Hand hand) {
+                events.hit(hand);
+            }
+
+            public void stood(Hand hand) {
+                events.stood(hand);
+            }
+
+            public void handFinished(Hand hand) {
+                events.handFinished(hand);
+            }
+
+            public void dealerStarted(Hand dealerHand) {
+                events.dealerStarted(dealerHand);
+            }
+
+            public void roundSettled(ArrayList<Player> table, Player dealer, RoundResult result) {
+                events.roundSettled(table, dealer, result);
+                Arrays.fill(wagers, 0, table.size(), 0);
+                Arrays.fill(results, 0, table.size(), 0);
+                for (int k = 0; k < result.size(); k++) {
+                    wagers[result.seat(k)] += result.bet(k) * Bankroll.CENTS;
+                    results[result.seat(k)] += result.amount(k) * Bankroll.CENTS;
+                }
+                for (int seat = 0; seat < table.size(); seat++) {
+                    Bankroll bankroll = table.get(seat).getBankroll();
+                    append((int) bankroll.getId(), wagers[seat], results[seat], bankroll.cents());
+                }
+            }
+        };
+    }
+
+    // usage: java SessionStore play <dir> [players] [rounds] [threads] [snapshot records]
+    //        java SessionStore open <dir>
+    // play opens the store and has each thread settle random rounds for its share of the
+    // players without waiting for the disk, waits once for the last round to be written, then
+    // stops the JVM without closing anything, as if it had crashed.
+    // open recovers the store, timing it, and checks each player's balance against their
+    // opening balance plus what they have won
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("usage: SessionStore play|open <dir> [players] [rounds] [threads] [snapshot records]");
+            return;
+        }
+        Path dir = Paths.get(args[1]);
+        int players = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+        long rounds = args.length > 3 ? Long.parseLong(args[3]) : 2000000;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+        long snapshotRecords = args.length > 5 ? Long.parseLong(args[5]) : 1000000;
+        long opening = 1000 * Bankroll.CENTS;
+
+        long start = System.nanoTime();
+        SessionStore store = new SessionStore(dir, 1 << 16, snapshotRecords);
+        long recovered = System.nanoTime() - start;
+        long bad = 0;
+        long played = 0;
+        for (int id = 0; id < store.players(); id++) {
+            if (store.balance(id) != opening + store.net(id)) bad++;
+            played += store.rounds(id);
+        }
+        System.out.printf("recovered %d players and %d rounds from segment %d in %.1f ms, %d balances wrong%n",
+            store.players(), played, store.segment(), recovered / 1e6, bad);
+        if (args[0].equals("open")) {
+            store.close();
+            return;
+        }
+
+        for (int id = store.players(); id < players; id++) store.append(id, 0, 0, opening);
+        Thread[] tables = new Thread[threads];
+        AtomicLong settled = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            tables[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(first);
+                Bankroll[] mine = new Bankroll[(players - first + threads - 1) / threads];
+                for (int i = 0; i < mine.length; i++) mine[i] = store.bankroll(first + i * threads, opening);
+                for (long r = first; r < rounds; r += threads) {
+                    Bankroll bankroll = mine[random.nextInt(mine.length)];
+                    long wager = (10 + random.nextInt(91)) * Bankroll.CENTS;
+                    int outcome = random.nextInt(20);
+                    long result = outcome < 9 ? -wager : outcome < 11 ? 0 : outcome < 19 ? wager : wager * 3 / 2;
+                    store.append((int) bankroll.getId(), wager, result, bankroll.add(result));
+                    settled.incrementAndGet();
+                }
+            }, "table-" + t);
+        }
+        start = System.nanoTime();
+        for (Thread table : tables) table.start();
+        for (Thread table : tables) table.join();
+        store.sync(store.claimed.get() - 1);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%d rounds in %.2f s (%.0f per sec), %d fsyncs, %.1f rounds per fsync%n",
+            settled.get(), elapsed / 1e9, settled.get() * 1e9 / elapsed, store.commits(),
+            settled.get() / (double) store.commits());
+        System.out.println("stopping without closing the store");
+        Runtime.getRuntime().halt(0);
+    }
+
+} // end class SessionStore
@@ -0,0 +1,300 @@
+package blackjack;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+// class Settlement is the end of a round: the dealer plays out their hand once, then every
+// seat and split hand is paid or collected in one pass over plain totals.
+// what happened to each hand goes into a RoundResult, and printing it is a separate step
+// that only the console game needs
+class Settlement {
+
+    private Settlement() {
+    }
+
+    // plays the dealer's hand and settles every bet at the table, changing each player's wealth.
+    // the dealer only draws when some hand is still live, as in the console game
+    static void settle(ArrayList<Player> table, Player dealer, int[] bets, RoundResult result) {
+        settle(table, dealer, bets, result, RuleSet.HOUSE);
+    }
+
+    // settles the round under the given rules: when the dealer draws, and what a blackjack pays.
+    // each hand is settled for the wager the player has on it; bets are the seat totals
+    // playBlackjack returned, which those wagers add up to
+    static void settle(ArrayList<Player> table, Player dealer, int[] bets, RoundResult result, RuleSet rules) {
+        result.clear();
+
+        // every hand's total is worked out once, and the dealer is needed only for live hands
+        boolean anyLive = false;
+        for (int i = 0; i < table.size(); i++) {
+            Player user = table.get(i);
+            for (int j = 0; j < user.handCount(); j++) {
+                Hand userHand = user.getHand(j);
+                int total = userHand.handValue();
+                boolean blackjack = total == 21 && userHand.handSize() == 2;
+                result.add(i, j, total, blackjack);
+                if (!blackjack && total <= 21) anyLive = true;
+            }
+        }
+
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        Hand dealerHand = dealer.getHand(0);
+        int dealerCards = dealerHand.handSize();
+        DealerTable dealerTable = rules.dealerTable(); // each card the dealer draws is one lookup
+        int dealerState = dealerTable.state(dealerHand);
+        int dealerTotal = dealerTable.total(dealerState);
+        boolean dealerBlackjack = dealerTotal == 21 && dealerCards == 2;
+        if (anyLive) {
+            while (dealerTable.hits(dealerState)) {
+                dealerHand.hit();
+                dealerState = dealerTable.next(dealerState, dealerHand.getCard(dealerHand.handSize() - 1));
+            }
+            dealerTotal = dealerTable.total(dealerState);
+            if (dealerTotal > 21) dealerHand.setBusted(true);
+        }
+        result.setDealer(dealerTotal, dealerCards, dealerBlackjack);
+        if (Metrics.ENABLED) {
+            long now = System.nanoTime();
+            Metrics.DEALER.record(now - start);
+            start = now;
+        }
+
+        // settle every hand against the dealer's final total
+        boolean dealerBusted = dealerTotal > 21;
+        for (int k = 0; k < result.size(); k++) {
+            int seat = result.seat(k);
+            Player user = table.get(seat);
+            int bet = user.getBet(result.hand(k));
+            int total = result.total(k);
+
+            byte outcome;
+            int amount;
+            if (result.blackjack(k)) {
+                outcome = dealerBlackjack ? RoundResult.PUSH : RoundResult.BLACKJACK;
+                amount = dealerBlackjack ? 0 : rules.blackjackPayout(bet);
+            } else if (total > 21) {
+                outcome = RoundResult.LOSE;
+                amount = -bet;
+            } else if (dealerBusted || total > dealerTotal) {
+                outcome = RoundResult.WIN;
+                amount = bet;
+            } else if (total < dealerTotal) {
+                outcome = RoundResult.LOSE;
+                amount = -bet;
+            } else {
+                outcome = RoundResult.PUSH;
+                amount = 0;
+            }
+            result.settle(k, bet, outcome, amount);
+            user.addMoney(amount);
+        }
+        if (Metrics.ENABLED) {
+            Metrics.SETTLEMENT.record(System.nanoTime() - start);
+            Metrics.ROUNDS.increment();
+        }
+    }
+
+    // prints a settled round the way determineWinners always has
+    static void print(ArrayList<Player> table, Player dealer, RoundResult result, PrintStream out) {
+        Hand dealerHand = dealer.getHand(0);
+        boolean dealerShown = false; // whether the dealer's draws have been printed yet
+
+        // some formatting
+        out.println("*------------------------*");
+        out.println("*      RESULTS BELOW     *");
+        out.println("*------------------------*");
+
+        for (int k = 0; k < result.size(); k++) {
+            int i = result.seat(k);
+            Hand userHand = table.get(i).getHand(result.hand(k));
+            int bet = result.bet(k);
+            int total = result.total(k);
+
+            if (result.blackjack(k)) {
+                if (result.outcome(k) == RoundResult.PUSH)
+                    out.println(" *** PUSH. You win 0. Both you and dealer had blackjack. \n");
+                else if (result.amount(k) == bet * 3 / 2)
+                    out.println(" *** BLACKJACK. You win 1.5x your bet of " + bet + ". *** \n");
+                else
+                    out.println(" *** BLACKJACK. You win " + result.amount(k) + " on your bet of " + bet + ". *** \n");
+            } else {
+                out.println("Hello, Player " + i + "\n");
+                boolean dealerBusted = result.dealerTotal() > 21;
+
+                if (total > 21) {
+                    if (dealerShown && dealerBusted)
+                        out.println(" *** DEALER WINS. You lose your bet of " + bet + " . Both you and dealer busted! *** \n");
+                    else
+                        out.println(" *** DEALER WINS. You lose your bet of " + bet + " . You busted! *** \n");
+                } else if (dealerShown && dealerBusted) {
+                    out.println(" *** YOU WIN. You win your bet of " + bet + " . Dealer busted! *** \n");
+                } else {
+                    // remind the user what the dealer has and what they have
+                    out.println("Player " + i + " As a reminder, your cards are the " + userHand.handCards() + "for a value of " + total + "\n");
+                    if (!dealerShown) {
+                        printDealerDraws(dealerHand, result.dealerCards(), out);
+                        dealerShown = true;
+                    } else {
+                        out.println("Dealer's cards are " + dealerHand.handCards());
+                    }
+
+                    if (dealerBusted) {
+                        out.println(" *** YOU WIN. You win your bet of " + bet + " . Dealer busted! *** \n");
+                    } else {
+                        out.println("Dealer's total is " + result.dealerTotal());
+                        if (result.outcome(k) == RoundResult.PUSH)
+                            out.println(" *** PUSH. You win 0. Both you and the dealer had the same final value. *** \n");
+                        else if (result.outcome(k) == RoundResult.LOSE)
+                            out.println(" *** DEALER WINS. You lose your bet of " + bet + " . Dealer had a higher final value. *** \n");
+                        else
+                            out.println(" *** YOU WIN. You win your bet of " + bet + " . You had a higher final value. *** \n");
+                    }
+                }
+            }
+
+            // a line after each seat's last hand
+            if (k == result.size() - 1 || result.seat(k + 1) != i) out.println("----");
+        }
+    }
+
+    // the dealer's first cards, then the hand after each card they drew
+    private static void printDealerDraws(Hand dealerHand, int startingCards, PrintStream out) {
+        StringBuilder cards = new StringBuilder();
+        for (int c = 0; c < startingCards; c++) {
+            cards.append(dealerHand.getCard(c).asString()).append(' ');
+        }
+        out.println("Dealer's cards are " + cards);
+        for (int c = startingCards; c < dealerHand.handSize(); c++) {
+            cards.append(dealerHand.getCard(c).asString()).append(' ');
+            out.println("The dealer hit to now have a hand of " + cards);
+        }
+    }
+
+} // end class Settlement
+
+
+
+// what happened to every hand in a round, one entry per hand in seat order.
+// held in parallel arrays that are reused from round to round
+class RoundResult {
+    static final byte PUSH = 0;
+    static final byte WIN = 1;
+    static final byte LOSE = 2;
+    static final byte BLACKJACK = 3; // a win paid at the rule set's blackjack odds
+
+    private byte[] seat; // the seat each hand belongs to
+    private byte[] hand; // the hand's position among the seat's hands
+    private byte[] total; // the hand's final value
+    private boolean[] blackjack; // whether or not the hand is a two card 21
+    private int[] bet; // what was wagered on the hand
+    private byte[] outcome; // how the hand was settled
+    private int[] amount; // what the hand won, negative if it lost
+    private int size; // the number of hands in the round
+    private int dealerTotal; // the dealer's final value
+    private int dealerCards; // the cards the dealer had before drawing
+    private boolean dealerBlackjack; // whether or not the dealer had a two card 21
+
+    // room for the given number of hands, more is made if a round needs it
+    public RoundResult(int hands) {
+        seat = new byte[hands];
+        hand = new byte[hands];
+        total = new byte[hands];
+        blackjack = new boolean[hands];
+        bet = new int[hands];
+        outcome = new byte[hands];
+        amount = new int[hands];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // adds a hand that is still to be settled
+    void add(int seatIndex, int handIndex, int handTotal, boolean isBlackjack) {
+        if (size == seat.length) grow();
+        seat[size] = (byte) seatIndex;
+        hand[size] = (byte) handIndex;
+        total[size] = (byte) handTotal;
+        blackjack[size] = isBlackjack;
+        size++;
+    }
+
+    void settle(int k, int handBet, byte handOutcome, int handAmount) {
+        bet[k] = handBet;
+        outcome[k] = handOutcome;
+        amount[k] = handAmount;
+    }
+
+    void setDealer(int finalTotal, int startingCards, boolean isBlackjack) {
+        dealerTotal = finalTotal;
+        dealerCards = startingCards;
+        dealerBlackjack = isBlackjack;
+    }
+
+    private void grow() {
+        int capacity = Math.max(4, seat.length * 2);
+        seat = Arrays.copyOf(seat, capacity);
+        hand = Arrays.copyOf(hand, capacity);
+        total = Arrays.copyOf(total, capacity);
+        blackjack = Arrays.copyOf(blackjack, capacity);
+        bet = Arrays.copyOf(bet, capacity);
+        outcome = Arrays.copyOf(outcome, capacity);
+        amount = Arrays.copyOf(amount, capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int seat(int k) {
+        return seat[k];
+    }
+
+    int hand(int k) {
+        return hand[k];
+    }
+
+    int total(int k) {
+        return total[k];
+    }
+
+    boolean blackjack(int k) {
+        return blackjack[k];
+    }
+
+    byte outcome(int k) {
+        return outcome[k];
+    }
+
+    int amount(int k) {
+        return amount[k];
+    }
+
+    int bet(int k) {
+        return bet[k];
+    }
+
+    // the total won or lost by every hand at the given seat
+    int seatAmount(int seatIndex) {
+        int sum = 0;
+        for (int k = 0; k < size; k++) {
+            if (seat[k] == seatIndex) sum += amount[k];
+        }
+        return sum;
+    }
+
+    int dealerTotal() {
+        return dealerTotal;
+    }
+
+    int dealerCards() {
+        return dealerCards;
+    }
+
+    boolean dealerBlackjack() {
+        return dealerBlackjack;
+    }
+
+} // end class RoundResult
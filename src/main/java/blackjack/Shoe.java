@@ -0,0 +1,178 @@
+package blackjack;
+
+import java.util.SplittableRandom;
+
+
+// class Shoe holds one or more decks of card codes, the way casino tables deal them.
+// a cut card is placed penetration of the way into the shoe, and the table shuffles
+// before the next round once it has been reached.
+// the shuffle is done lazily, one swap per card dealt, so a reshuffle only resets a count
+// and costs the same however many decks are in the shoe.
+// the shoe keeps a ShoeCount as it deals, read through snapshot.
+// cards can be stacked on top of the shoe after a shuffle, to set up a hand on purpose.
+// saveTo copies where the shoe stands into a ShoeState, a few hundred bytes of card codes and
+// counts, and restore puts it back, so one position can be played out again and again
+class Shoe {
+    static final int ANY = -1; // stacks a card picked at random
+
+    private final byte[] cards; // the card codes in the shoe
+    private final int cutCard; // how many cards are dealt before the shoe needs a shuffle
+    private int cardsUsed; // number of cards that have been dealt since the last shuffle
+    private int stacked; // the cards before this one were put in order by stack
+    private SplittableRandom random; // the source of randomness for every shuffle
+    private final ShoeCount count; // what has been dealt, by value and by counting system
+
+    // a shoe of the given number of decks, with the cut card placed after the given
+    // fraction of its cards. a penetration of 0 shuffles before every round
+    public Shoe(int decks, double penetration, long seed) {
+        if (decks <= 0)
+            throw new IllegalArgumentException("a shoe needs at least one deck, not " + decks);
+        if (penetration < 0 || penetration > 1)
+            throw new IllegalArgumentException("penetration must be between 0 and 1, not " + penetration);
+
+        cards = new byte[decks * Cards.COUNT];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = (byte) (i % Cards.COUNT);
+        }
+        cutCard = (int) (penetration * cards.length);
+        random = new SplittableRandom(seed);
+        count = new ShoeCount(decks);
+    }
+
+    // a copy of the given shoe as it stands, dealing from then on with its own seed
+    private Shoe(Shoe shoe, long seed) {
+        cards = shoe.cards.clone();
+        cutCard = shoe.cutCard;
+        cardsUsed = shoe.cardsUsed;
+        stacked = shoe.stacked;
+        random = new SplittableRandom(seed);
+        count = new ShoeCount(shoe.decks());
+        count.restore(shoe.count);
+    }
+
+    // puts every card back in the shoe. the order is decided as cards are dealt
+    void shuffle() {
+        cardsUsed = 0;
+        stacked = 0;
+        count.reset();
+        if (Metrics.ENABLED) Metrics.SHUFFLES.increment();
+    }
+
+    // puts a card with the given value index next in line after any already stacked,
+    // or a random card for ANY. the card stays in the shoe until it is dealt
+    void stack(int value) {
+        if (stacked < cardsUsed) stacked = cardsUsed;
+        if (stacked == cards.length)
+            throw new IllegalStateException("every card left in the shoe is already stacked");
+
+        int j;
+        if (value == ANY) {
+            j = stacked + random.nextInt(cards.length - stacked);
+        } else {
+            j = stacked;
+            while (j < cards.length && Cards.value(cards[j]) != value) j++;
+            if (j == cards.length)
+                throw new IllegalStateException("no card of value index " + value + " left to stack");
+        }
+        byte card = cards[j];
+        cards[j] = cards[stacked];
+        cards[stacked] = card;
+        stacked++;
+    }
+
+    // deal out one card, the next stacked one or else picked at random from the cards not dealt yet.
+    // reshuffles once every card has been dealt
+    int deal() {
+        if (cardsUsed == cards.length) shuffle();
+        int j = cardsUsed < stacked ? cardsUsed : cardsUsed + random.nextInt(cards.length - cardsUsed);
+        byte card = cards[j];
+        cards[j] = cards[cardsUsed];
+        cards[cardsUsed] = card;
+        cardsUsed++;
+        count.dealt(card);
+        if (Metrics.ENABLED) Metrics.DEALS.increment();
+        return card;
+    }
+
+    // copies the card counts as they stand into snapshot
+    void snapshot(CountSnapshot snapshot) {
+        count.copyTo(snapshot);
+    }
+
+    // copies the cards, what has been dealt and the counts into state, so nothing is allocated.
+    // the random source isn't part of it, restore picks where the cards come from next
+    void saveTo(ShoeState state) {
+        if (state.cards.length != cards.length)
+            throw new IllegalArgumentException("a state for " + state.cards.length / Cards.COUNT
+                + " decks can't hold a shoe of " + decks());
+        System.arraycopy(cards, 0, state.cards, 0, cards.length);
+        state.cardsUsed = cardsUsed;
+        state.stacked = stacked;
+        count.copyTo(state.count);
+    }
+
+    // puts the shoe back where it was when state was saved. the cards still to come are
+    // drawn from the same random source as before, so each restore deals a different future
+    void restore(ShoeState state) {
+        if (state.cards.length != cards.length)
+            throw new IllegalArgumentException("a state for " + state.cards.length / Cards.COUNT
+                + " decks can't be put back into a shoe of " + decks());
+        System.arraycopy(state.cards, 0, cards, 0, cards.length);
+        cardsUsed = state.cardsUsed;
+        stacked = state.stacked;
+        count.restore(state.count);
+    }
+
+    // puts the shoe back where it was, and reseeds it so the cards still to come are the same
+    // every time it is restored with the same seed. comparing two plays from the same position
+    // with the same seed deals both the same cards, which takes the luck of the draw out of
+    // the difference between them
+    void restore(ShoeState state, long seed) {
+        restore(state);
+        random = new SplittableRandom(seed);
+    }
+
+    // a separate shoe holding the same cards as this one, dealing with the given seed
+    Shoe fork(long seed) {
+        return new Shoe(this, seed);
+    }
+
+    // whether or not the cut card has come out, so the shoe should be shuffled before the next round
+    boolean pastCutCard() {
+        return cardsUsed >= cutCard;
+    }
+
+    int size() {
+        return cards.length;
+    }
+
+    int decks() {
+        return cards.length / Cards.COUNT;
+    }
+
+    int cardsUsed() {
+        return cardsUsed;
+    }
+
+    int cardsLeft() {
+        return cards.length - cardsUsed;
+    }
+
+} // end class Shoe
+
+
+
+// where a Shoe stood at one point: the order of its cards, how many have been dealt and
+// stacked, and the counts. make one for a shoe with ShoeState(shoe) and reuse it, saveTo
+// fills it in place
+class ShoeState {
+    final byte[] cards; // the card codes in the shoe, the ones dealt first
+    final CountSnapshot count = new CountSnapshot(); // the shoe's counts
+    int cardsUsed; // number of cards that had been dealt
+    int stacked; // the cards before this one had been put in order by stack
+
+    public ShoeState(Shoe shoe) {
+        this.cards = new byte[shoe.size()];
+    }
+
+} // end class ShoeState
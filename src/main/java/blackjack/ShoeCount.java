@@ -0,0 +1,147 @@
+package blackjack;
+
+// class ShoeCount keeps the card counts for a Shoe: how many cards of each value are
+// left, and the running count under every counting system at once.
+// the shoe updates it for every card it deals, which is a handful of additions,
+// and resets it when it shuffles
+class ShoeCount {
+    static final int HI_LO = 0;
+    static final int KO = 1;
+    static final int OMEGA_II = 2;
+    static final int SYSTEMS = 3; // the number of counting systems tracked
+
+    static final String[] SYSTEM_NAMES = {"Hi-Lo", "KO", "Omega II"};
+
+    // what each card adds to the running count, for each system, indexed by the card's value index:
+    //                             2  3  4  5  6  7  8   9  10   J   Q   K   A
+    private static final byte[][] TAGS = {
+        /* Hi-Lo */            { 1, 1, 1, 1, 1, 0, 0,  0, -1, -1, -1, -1, -1},
+        /* KO */               { 1, 1, 1, 1, 1, 1, 0,  0, -1, -1, -1, -1, -1},
+        /* Omega II */         { 1, 1, 2, 2, 2, 1, 0, -1, -2, -2, -2, -2,  0},
+    };
+
+    private final int decks; // the number of decks in the shoe
+    private final int[] remaining; // cards of each value index not dealt yet
+    private final int[] running; // the running count for each system
+    private int cardsLeft; // cards not dealt yet
+
+    public ShoeCount(int decks) {
+        this.decks = decks;
+        this.remaining = new int[13];
+        this.running = new int[SYSTEMS];
+        reset();
+    }
+
+    // every card is back in the shoe
+    void reset() {
+        for (int value = 0; value < remaining.length; value++) {
+            remaining[value] = 4 * decks;
+        }
+        running[HI_LO] = 0;
+        running[KO] = initialCount(KO, decks);
+        running[OMEGA_II] = 0;
+        cardsLeft = decks * Cards.COUNT;
+    }
+
+    // counts a card that has just been dealt
+    void dealt(int card) {
+        int value = Cards.value(card);
+        remaining[value]--;
+        cardsLeft--;
+        running[HI_LO] += TAGS[HI_LO][value];
+        running[KO] += TAGS[KO][value];
+        running[OMEGA_II] += TAGS[OMEGA_II][value];
+    }
+
+    // the running count a system starts a shoe on. KO is unbalanced, so it starts
+    // below zero and reaches zero around the point where the deck favors the player
+    static int initialCount(int system, int decks) {
+        return system == KO ? 4 - 4 * decks : 0;
+    }
+
+    // copies the counts into a snapshot the caller owns, so nothing is allocated
+    void copyTo(CountSnapshot snapshot) {
+        snapshot.copy(decks, cardsLeft, running, remaining);
+    }
+
+    // puts the counts back to what another count of a shoe the same size holds
+    void restore(ShoeCount other) {
+        System.arraycopy(other.remaining, 0, remaining, 0, remaining.length);
+        System.arraycopy(other.running, 0, running, 0, running.length);
+        cardsLeft = other.cardsLeft;
+    }
+
+    // puts the counts back to what they were when snapshot was taken
+    void restore(CountSnapshot snapshot) {
+        for (int value = 0; value < remaining.length; value++) {
+            remaining[value] = snapshot.remaining(value);
+        }
+        for (int system = 0; system < running.length; system++) {
+            running[system] = snapshot.runningCount(system);
+        }
+        cardsLeft = snapshot.cardsLeft();
+    }
+
+} // end class ShoeCount
+
+
+
+// a copy of a shoe's counts at one point in time, read by simulations and betting strategies.
+// make one and pass it to Shoe.snapshot as often as needed, it is filled in place
+class CountSnapshot {
+    private final int[] remaining = new int[13]; // cards of each value index not dealt yet
+    private final int[] running = new int[ShoeCount.SYSTEMS]; // the running count for each system
+    private int decks; // the number of decks in the shoe
+    private int cardsLeft; // cards not dealt yet
+
+    void copy(int decks, int cardsLeft, int[] running, int[] remaining) {
+        this.decks = decks;
+        this.cardsLeft = cardsLeft;
+        System.arraycopy(running, 0, this.running, 0, this.running.length);
+        System.arraycopy(remaining, 0, this.remaining, 0, this.remaining.length);
+    }
+
+    int decks() {
+        return decks;
+    }
+
+    int cardsLeft() {
+        return cardsLeft;
+    }
+
+    int cardsUsed() {
+        return decks * Cards.COUNT - cardsLeft;
+    }
+
+    // how many decks' worth of cards are left
+    double decksRemaining() {
+        return cardsLeft / (double) Cards.COUNT;
+    }
+
+    // the running count for one of ShoeCount's systems
+    int runningCount(int system) {
+        return running[system];
+    }
+
+    // the running count per deck left in the shoe
+    double trueCount(int system) {
+        return cardsLeft == 0 ? 0 : running[system] / decksRemaining();
+    }
+
+    // cards of the given value index not dealt yet
+    int remaining(int value) {
+        return remaining[value];
+    }
+
+    // fills counts with the cards left by point value, 1 for aces up to 10,
+    // the composition DealerOdds works from
+    void composition(int[] counts) {
+        for (int points = 0; points <= 10; points++) {
+            counts[points] = 0;
+        }
+        for (int value = 0; value < remaining.length; value++) {
+            counts[Cards.valuePoints(value)] += remaining[value];
+        }
+    }
+
+} // end class CountSnapshot
@@ -0,0 +1,324 @@
+package blackjack;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Random;
+
+
+// class Simulation plays rounds of blackjack with no console input or output.
+// every seat is played by a PlayerStrategy, and the money each seat wins or loses
+// is collected into a SimulationStats
+class Simulation {
+    private final Deck deck; // the deck shared by the dealer and every seat
+    private final Player dealer; // the house
+    private final ArrayList<Player> table; // the seats being simulated
+    private PlayerStrategy strategy; // makes every seat's decisions
+    private GameEvents events = NoEvents.INSTANCE; // told about every round, ignored by default
+    private HandHistoryWriter history; // records every round, if set
+    private int rounds; // rounds played so far
+    private final SimulationStats stats; // what each seat has won and lost so far
+    private final RoundResult result; // how every hand of the last round was settled
+    private final RuleSet rules; // when the dealer draws and what a blackjack pays
+
+    public Simulation(int seats, PlayerStrategy strategy) {
+        this(seats, strategy, new Deck());
+    }
+
+    // a simulation whose deck is shuffled from the given seed, so the run can be repeated
+    public Simulation(int seats, PlayerStrategy strategy, long seed) {
+        this(seats, strategy, new Deck(new Random(seed)), RuleSet.HOUSE);
+    }
+
+    // playBlackjack splits and doubles after splitting as the rules say, and settling the round
+    // follows the dealer's draws and the blackjack payout; surrender and insurance are only in FastSimulation
+    public Simulation(int seats, PlayerStrategy strategy, long seed, RuleSet rules) {
+        this(seats, strategy, new Deck(new Random(seed)), rules);
+    }
+
+    private Simulation(int seats, PlayerStrategy strategy, Deck deck) {
+        this(seats, strategy, deck, RuleSet.HOUSE);
+    }
+
+    private Simulation(int seats, PlayerStrategy strategy, Deck deck, RuleSet rules) {
+        if (seats > rules.seats())
+            throw new IllegalArgumentException("these rules only have " + rules.seats() + " seats, not " + seats);
+        if (rules.surrender() || rules.insurance())
+            throw new IllegalArgumentException("the console game's round can't be played under " + rules
+                + ", use FastSimulation");
+        this.rules = rules;
+        this.deck = deck;
+        this.dealer = new Player(deck);
+        this.table = new ArrayList<Player>();
+        for (int i = 0; i < seats; i++) {
+            table.add(new Player(deck, i));
+        }
+        this.strategy = strategy;
+        this.stats = new SimulationStats(seats);
+        this.result = new RoundResult(seats * rules.maxHands());
+    }
+
+    // plays one round at the table, the same way Blackjack.main does between prompts
+    void playRound() {
+        if (history != null) history.roundStarted(rounds);
+        rounds++;
+        deck.shuffle();
+        dealer.clearHands();
+        Hand dealerHand = dealer.getHand(0);
+        dealerHand.hit();
+        dealerHand.hit();
+
+        // every seat starts the round with the same bankroll, so no one is ever too broke to bet
+        for (int i = 0; i < table.size(); i++) {
+            Player user = table.get(i);
+            user.clearHands();
+            user.setMoney(SimulationStats.BANKROLL);
+        }
+
+        int[] bets = Blackjack.playBlackjack(table, dealer, strategy, events, rules);
+        events.dealerStarted(dealerHand);
+        Settlement.settle(table, dealer, bets, result, rules);
+        events.roundSettled(table, dealer, result);
+
+        for (int i = 0; i < table.size(); i++) {
+            stats.record(i, bets[i], result.seatAmount(i));
+        }
+    }
+
+    // plays the given amount of rounds, timing how long they take
+    SimulationStats run(long rounds) {
+        long start = System.nanoTime();
+        for (long r = 0; r < rounds; r++) {
+            playRound();
+        }
+        stats.addRounds(rounds);
+        stats.addTime(System.nanoTime() - start);
+        return stats;
+    }
+
+    // records every card, decision and settlement from now on into the given hand history
+    void record(HandHistoryWriter history) {
+        this.history = history;
+        this.strategy = history.recording(strategy);
+        this.events = history;
+        deck.setListener(history);
+    }
+
+    // what each seat has won and lost so far
+    SimulationStats getStats() {
+        return stats;
+    }
+
+    // usage: java Simulation [rounds] [seats] [rules]
+    // rules are written the way RuleSet.parse reads them, the house rules by default
+    public static void main(String[] args) {
+        long rounds = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        RuleSet rules = args.length > 2 ? RuleSet.parse(args[2]) : RuleSet.HOUSE;
+        if (seats <= 0 || seats > rules.seats()) {
+            System.out.println("Please enter a valid amount. The house only has up to " + rules.seats() + " seats");
+            return;
+        }
+
+        Simulation simulation = new Simulation(seats, new BasicStrategy(rules, 10), System.nanoTime(), rules);
+        Metrics.start(System.out, 10);
+        simulation.run(rounds).report(System.out);
+        if (Metrics.ENABLED) Metrics.report(System.out);
+    }
+
+} // end class Simulation
+
+
+
+// plays every hand the way the dealer has to: a flat bet, no splits,
+// no doubling down, and hit until the total is 17 or more
+class MimicDealerStrategy implements PlayerStrategy, FastStrategy {
+    private final int betSize; // the same wager every round
+
+    public MimicDealerStrategy(int betSize) {
+        this.betSize = betSize;
+    }
+
+    public int bet(Player user) {
+        return Math.min(betSize, user.getMoney());
+    }
+
+    public boolean split(Player user, Hand hand, Card dealerCard) {
+        return false;
+    }
+
+    public boolean doubleDown(Player user, Hand hand, Card dealerCard) {
+        return false;
+    }
+
+    public int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize) {
+        return 0;
+    }
+
+    public boolean hit(Player user, Hand hand, Card dealerCard) {
+        return hand.handValue() <= 16;
+    }
+
+    public boolean split(int value, int dealerPoints) {
+        return false;
+    }
+
+    public boolean doubleDown(int total, boolean soft, int dealerPoints) {
+        return false;
+    }
+
+    public boolean hit(int total, boolean soft, int dealerPoints) {
+        return total <= 16;
+    }
+
+} // end class MimicDealerStrategy
+
+
+
+// running totals for every seat at a simulated table.
+// besides the totals, each seat's round results go into a RunningStats, so a report can say
+// how far the EV might be from the truth without keeping a single result
+class SimulationStats {
+    static final int BANKROLL = 1000; // what every simulated seat sits down with each round
+    static final double Z = 1.96; // standard errors either side of the mean for a 95% confidence interval
+
+    private final int seats; // the number of seats at the table
+    private final long[] wins; // rounds each seat finished ahead
+    private final long[] losses; // rounds each seat finished behind
+    private final long[] pushes; // rounds each seat broke even
+    private final long[] wagered; // total amount each seat has bet
+    private final long[] net; // total amount each seat has won, negative if lost
+    private final RunningStats[] results; // the mean, spread and shape of each seat's round results
+    private long rounds; // rounds played
+    private long nanos; // time spent playing them
+
+    public SimulationStats(int seats) {
+        this.seats = seats;
+        this.wins = new long[seats];
+        this.losses = new long[seats];
+        this.pushes = new long[seats];
+        this.wagered = new long[seats];
+        this.net = new long[seats];
+        this.results = new RunningStats[seats];
+        for (int i = 0; i < seats; i++) results[i] = new RunningStats();
+    }
+
+    // records one round's bet and result for a seat
+    void record(int seat, int bet, int result) {
+        wagered[seat] += bet;
+        net[seat] += result;
+        results[seat].add(result);
+        if (result > 0) wins[seat]++;
+        else if (result < 0) losses[seat]++;
+        else pushes[seat]++;
+    }
+
+    // adds rounds played to the totals
+    void addRounds(long count) {
+        rounds += count;
+    }
+
+    // adds time spent playing to the totals
+    void addTime(long elapsedNanos) {
+        nanos += elapsedNanos;
+    }
+
+    // adds another table's results into these, seat by seat.
+    // time is left alone, since tables played side by side share the same wall clock
+    void merge(SimulationStats other) {
+        if (other.seats != seats)
+            throw new IllegalArgumentException("can't merge " + other.seats + " seats into " + seats);
+        for (int i = 0; i < seats; i++) {
+            wins[i] += other.wins[i];
+            losses[i] += other.losses[i];
+            pushes[i] += other.pushes[i];
+            wagered[i] += other.wagered[i];
+            net[i] += other.net[i];
+            results[i].merge(other.results[i]);
+        }
+        rounds += other.rounds;
+    }
+
+    // starts every total from zero, so a table can hand its results on in batches
+    void reset() {
+        for (int i = 0; i < seats; i++) {
+            wins[i] = 0;
+            losses[i] = 0;
+            pushes[i] = 0;
+            wagered[i] = 0;
+            net[i] = 0;
+            results[i].reset();
+        }
+        rounds = 0;
+        nanos = 0;
+    }
+
+    int getSeats() {
+        return seats;
+    }
+
+    long getRounds() {
+        return rounds;
+    }
+
+    long getWins(int seat) {
+        return wins[seat];
+    }
+
+    long getLosses(int seat) {
+        return losses[seat];
+    }
+
+    long getPushes(int seat) {
+        return pushes[seat];
+    }
+
+    long getWagered(int seat) {
+        return wagered[seat];
+    }
+
+    long getNet(int seat) {
+        return net[seat];
+    }
+
+    // the mean, variance, skewness and kurtosis of the seat's round results
+    RunningStats getResults(int seat) {
+        return results[seat];
+    }
+
+    // rounds played per second of simulation time
+    double roundsPerSecond() {
+        return nanos == 0 ? 0 : rounds * 1e9 / nanos;
+    }
+
+    // expected value of one unit wagered at the given seat
+    double expectedValue(int seat) {
+        return wagered[seat] == 0 ? 0 : (double) net[seat] / wagered[seat];
+    }
+
+    // how far either side of expectedValue the true EV is, 19 times in 20.
+    // the spread of the round results is scaled by the mean bet, ignoring how the bet varies
+    double expectedValueError(int seat) {
+        return wagered[seat] == 0 ? 0 : results[seat].halfWidth(Z) * results[seat].count() / wagered[seat];
+    }
+
+    // whether every seat's mean round result is known to within the given amount, 19 times in 20
+    boolean precise(double amount) {
+        for (int i = 0; i < seats; i++) {
+            if (results[i].count() < 2 || results[i].halfWidth(Z) > amount) return false;
+        }
+        return true;
+    }
+
+    // prints the throughput and each seat's results
+    void report(PrintStream out) {
+        out.printf("%d rounds in %.3f s (%.0f rounds/sec)%n", rounds, nanos / 1e9, roundsPerSecond());
+        for (int i = 0; i < seats; i++) {
+            out.printf("seat %d: won %d, lost %d, pushed %d, wagered %d, net %d, EV %+.4f +/- %.4f per unit bet%n",
+                i, wins[i], losses[i], pushes[i], wagered[i], net[i], expectedValue(i), expectedValueError(i));
+            RunningStats seat = results[i];
+            out.printf("        round result mean %+.4f, sd %.4f, skewness %+.3f, kurtosis %+.3f%n",
+                seat.mean(), seat.standardDeviation(), seat.skewness(), seat.kurtosis());
+        }
+    }
+
+} // end class SimulationStats
@@ -0,0 +1,312 @@
+package blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+
+// class StrategyOptimizer works out a basic strategy chart by simulation instead of taking it from a book.
+// for every cell of the chart, a hand and a dealer card, it deals that hand over and over, takes each
+// action the game allows on it and plays on by the chart, and keeps the action that wins the most.
+// rounds are played in batches, and an action stops being dealt as soon as its confidence
+// interval shows it is clearly worse than the best one, or too close to it to matter.
+//
+// every hand is played under the optimizer's RuleSet, so a chart can be worked out for any house rules.
+//
+// a cell only depends on the cells its hand can turn into by drawing, against the same dealer card,
+// so each dealer card's column is worked out on its own thread, from the stiffest hands down
+class StrategyOptimizer {
+    static final int BATCH = 10000; // rounds dealt to each action between looks at the results
+    static final double Z = 3.0; // width of the confidence intervals, in standard errors
+    static final double TOLERANCE = 0.001; // EV per unit bet too small to be worth telling apart
+    static final int BET = 10; // every hand opens with this wager
+
+    private final RuleSet rules; // the rules every hand is played under
+    private final int decks; // decks in the shoe every hand is dealt from
+    private final long maxTrials; // the most rounds any one action is dealt in a cell
+    private final long seed; // each column is seeded from this one
+    private final StrategyTable table; // the chart being worked out, which every simulated hand plays by
+    private final LongAdder rounds = new LongAdder(); // rounds played so far
+
+    // starts from a copy of the given chart, which decides the cells no one has worked out yet
+    public StrategyOptimizer(StrategyTable start, RuleSet rules, int decks, long maxTrials, long seed) {
+        this.table = new StrategyTable(start);
+        this.rules = rules;
+        this.decks = decks;
+        this.maxTrials = maxTrials;
+        this.seed = seed;
+    }
+
+    // works out every column on the pool, and returns the finished chart
+    StrategyTable optimize(ForkJoinPool pool) throws InterruptedException, ExecutionException {
+        List<Callable<Void>> columns = new ArrayList<Callable<Void>>();
+        for (int dealerPoints = 1; dealerPoints <= 10; dealerPoints++) {
+            int up = dealerPoints;
+            columns.add(() -> {
+                new Column(up).solve();
+                return null;
+            });
+        }
+        for (Future<Void> column : pool.invokeAll(columns)) {
+            column.get();
+        }
+        return table;
+    }
+
+    long getRounds() {
+        return rounds.sum();
+    }
+
+    // the value index of a card worth the given points, picking one of the ten-point cards at random
+    private static int valueFor(int points, SplittableRandom random) {
+        if (points == 1) return Cards.ACE;
+        if (points == 10) return 8 + random.nextInt(4);
+        return points - 2;
+    }
+
+    // one dealer card's column, with a table for every action to be tried
+    private class Column {
+        private final int dealerPoints; // the dealer's face up card
+        private final SplittableRandom random; // picks the cards each hand starts with
+        private final Shoe[] shoes = new Shoe[3]; // every action has its own shoe,
+        private final FastSimulation[] tables = new FastSimulation[3]; // table,
+        private final ForcedStrategy[] players = new ForcedStrategy[3]; // and player
+        private final long[] count = new long[3]; // rounds each action has been dealt in this cell
+        private final double[] sum = new double[3]; // and what it won over them
+        private final double[] sumSquares = new double[3];
+        private final boolean[] alive = new boolean[3]; // whether an action is still being dealt
+        private int firstValue; // the player's first card this round
+        private int secondValue; // the player's second card this round
+
+        Column(int dealerPoints) {
+            this.dealerPoints = dealerPoints;
+            this.random = new SplittableRandom(seed + dealerPoints);
+            BasicStrategy chart = new BasicStrategy(table, BET);
+            for (int k = 0; k < 3; k++) {
+                // a full shoe for every round, and never a reshuffle in the middle of one
+                shoes[k] = new Shoe(decks, 1, random.nextLong());
+                players[k] = new ForcedStrategy(chart);
+                tables[k] = new FastSimulation(1, players[k], BET, shoes[k], rules);
+            }
+        }
+
+        // hitting a hand only ever makes it a higher hard total, a soft total from a hard 10 or less,
+        // or a hard total of 12 or more from a soft one, so each cell is solved after the ones it can become
+        void solve() {
+            for (int total = 20; total >= 11; total--) solveTotal(total, false);
+            for (int total = 20; total >= 13; total--) solveTotal(total, true);
+            for (int total = 10; total >= 5; total--) solveTotal(total, false);
+
+            // hard 4 and soft 12 only come from a pair that isn't split
+            solvePairTotal(2, 4, false);
+            solvePairTotal(1, 12, true);
+            for (int points = 1; points <= 10; points++) solvePair(points);
+        }
+
+        // a two card total that isn't a pair: hit, stand or double down
+        private void solveTotal(int total, boolean isSoft) {
+            byte[] actions = {StrategyTable.HIT, StrategyTable.STAND, StrategyTable.DOUBLE};
+            int best = evaluate(actions, () -> {
+                if (isSoft) {
+                    firstValue = Cards.ACE;
+                    secondValue = total - 13;
+                } else {
+                    // two different cards, neither of them an ace
+                    do {
+                        firstValue = random.nextInt(Cards.ACE);
+                        secondValue = valueFor(total - Cards.valuePoints(firstValue), random);
+                    } while (total - Cards.valuePoints(firstValue) < 2 || total - Cards.valuePoints(firstValue) > 10
+                        || firstValue == secondValue);
+                }
+            });
+
+            byte action = actions[best];
+            if (action == StrategyTable.DOUBLE && mean(1) > mean(0)) action = StrategyTable.DOUBLE_STAND;
+
+            // surrender isn't tried, so a surrender whose fallback still wins is kept
+            byte current = table.action(total, isSoft, dealerPoints);
+            if (current == StrategyTable.SURRENDER_HIT && action == StrategyTable.HIT
+                    || current == StrategyTable.SURRENDER_STAND && action == StrategyTable.STAND) action = current;
+            table.setAction(total, isSoft, dealerPoints, action);
+        }
+
+        // a total only a pair makes, played without splitting: hit or stand
+        private void solvePairTotal(int points, int total, boolean isSoft) {
+            byte[] actions = {StrategyTable.HIT, StrategyTable.STAND};
+            int best = evaluate(actions, () -> {
+                firstValue = valueFor(points, random);
+                secondValue = firstValue;
+            });
+            table.setAction(total, isSoft, dealerPoints, actions[best]);
+        }
+
+        // a pair: split, or play the total by the chart
+        private void solvePair(int points) {
+            byte[] actions = {StrategyTable.SPLIT, ForcedStrategy.KEEP};
+            int best = evaluate(actions, () -> {
+                firstValue = valueFor(points, random);
+                secondValue = firstValue;
+            });
+
+            byte action = StrategyTable.SPLIT;
+            if (best != 0) {
+                // there is no doubling down on a pair, so the row shows what the total does instead
+                int total = points == 1 ? 12 : points * 2;
+                action = table.action(total, points == 1, dealerPoints);
+                if (action == StrategyTable.DOUBLE) action = StrategyTable.HIT;
+                if (action == StrategyTable.DOUBLE_STAND) action = StrategyTable.STAND;
+            }
+            table.setPairAction(points, dealerPoints, action);
+        }
+
+        // deals the cell in batches until the best action stands out, and returns its index
+        private int evaluate(byte[] actions, Runnable deal) {
+            for (int k = 0; k < actions.length; k++) {
+                count[k] = 0;
+                sum[k] = 0;
+                sumSquares[k] = 0;
+                alive[k] = true;
+            }
+
+            long trials = 0;
+            int best = 0;
+            while (trials < maxTrials) {
+                for (int t = 0; t < BATCH; t++) {
+                    deal.run();
+                    for (int k = 0; k < actions.length; k++) {
+                        if (!alive[k]) continue;
+                        double result = play(k, actions[k]);
+                        count[k]++;
+                        sum[k] += result;
+                        sumSquares[k] += result * result;
+                    }
+                }
+                trials += BATCH;
+
+                best = -1;
+                for (int k = 0; k < actions.length; k++) {
+                    if (alive[k] && (best < 0 || mean(k) > mean(best))) best = k;
+                }
+                boolean settled = true;
+                for (int k = 0; k < actions.length; k++) {
+                    if (!alive[k] || k == best) continue;
+                    double margin = Z * Math.sqrt(variance(best) / count[best] + variance(k) / count[k]);
+                    double difference = mean(best) - mean(k);
+                    if (difference > margin) alive[k] = false; // clearly worse
+                    else if (margin >= TOLERANCE) settled = false; // can't tell yet
+                }
+                if (settled) break;
+            }
+            for (int k = 0; k < actions.length; k++) {
+                rounds.add(count[k]);
+            }
+            return best;
+        }
+
+        // what an action has won per unit bet, on average, in the cell being evaluated
+        private double mean(int k) {
+            return sum[k] / count[k];
+        }
+
+        private double variance(int k) {
+            double mean = mean(k);
+            return sumSquares[k] / count[k] - mean * mean;
+        }
+
+        // plays one round with the hand set up by the last deal, taking the action first,
+        // and returns what was won per unit bet
+        private double play(int k, byte action) {
+            Shoe shoe = shoes[k];
+            shoe.shuffle();
+            shoe.stack(valueFor(dealerPoints, random));
+            shoe.stack(Shoe.ANY);
+            shoe.stack(firstValue);
+            shoe.stack(secondValue);
+            players[k].force(action);
+
+            SimulationStats stats = tables[k].getStats();
+            long before = stats.getNet(0);
+            tables[k].playRound();
+            return (double) (stats.getNet(0) - before) / BET;
+        }
+    }
+
+    // usage: java StrategyOptimizer [max rounds per action] [decks] [threads] [seed] [rules]
+    // prints the chart it works out as CSV, the same way StrategyTable does. it starts from the
+    // chart StrategyTable has for the rules, the house rules by default, and counts the changes
+    public static void main(String[] args) throws Exception {
+        long maxTrials = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        int decks = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        RuleSet rules = args.length > 4 ? RuleSet.parse(args[4]) : RuleSet.HOUSE;
+
+        StrategyTable chartForRules = StrategyTable.forRules(rules);
+        StrategyOptimizer optimizer = new StrategyOptimizer(chartForRules, rules, decks, maxTrials, seed);
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        StrategyTable chart;
+        try {
+            chart = optimizer.optimize(pool);
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("# %d rounds in %.1f s on %d threads, %d decks, %s%n", optimizer.getRounds(), elapsed / 1e9,
+            threads, decks, rules);
+        System.out.printf("# %d actions differ from the chart for these rules%n", chart.differences(chartForRules));
+        chart.write(System.out);
+    }
+
+} // end class StrategyOptimizer
+
+
+
+// plays the first decision of a round the way it is told to, and the rest by another strategy.
+// a pair is split or not by the forced action, and otherwise played on by the other strategy;
+// any other hand is doubled down, or hit or stood on once
+class ForcedStrategy implements FastStrategy {
+    static final byte KEEP = -1; // don't split the pair
+
+    private final FastStrategy rest; // makes every decision after the first
+    private byte action; // what to do first this round
+    private boolean decided; // whether the first decision has been made this round
+
+    public ForcedStrategy(FastStrategy rest) {
+        this.rest = rest;
+    }
+
+    // sets what to do first in the next round
+    void force(byte action) {
+        this.action = action;
+        this.decided = false;
+    }
+
+    public boolean split(int value, int dealerPoints) {
+        if (action == StrategyTable.SPLIT || action == KEEP) {
+            decided = true;
+            return action == StrategyTable.SPLIT;
+        }
+        return false;
+    }
+
+    public boolean doubleDown(int total, boolean soft, int dealerPoints) {
+        if (decided) return rest.doubleDown(total, soft, dealerPoints);
+        if (action != StrategyTable.DOUBLE) return false;
+        decided = true;
+        return true;
+    }
+
+    public boolean hit(int total, boolean soft, int dealerPoints) {
+        if (decided) return rest.hit(total, soft, dealerPoints);
+        decided = true;
+        return action == StrategyTable.HIT;
+    }
+
+} // end class ForcedStrategy
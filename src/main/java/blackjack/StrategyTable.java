@@ -0,0 +1,314 @@
+package blackjack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+
+
+// class StrategyTable is a basic strategy chart held as dense arrays of actions,
+// so any decision is a single array lookup.
+// there is a table for hard totals, one for soft totals and one for pairs,
+// each with a column for every dealer face up card.
+//
+// a chart is read and written as CSV, one row per hand and one action per dealer card:
+//     hard,12,H,H,S,S,S,H,H,H,H,H
+// the columns are the dealer showing 2 through 10, then an ace. pair rows are named
+// by the value of the pair's cards, 2 to 10 or A
+class StrategyTable {
+    static final byte HIT = 0;
+    static final byte STAND = 1;
+    static final byte DOUBLE = 2; // double down, or hit when doubling isn't allowed
+    static final byte DOUBLE_STAND = 3; // double down, or stand when doubling isn't allowed
+    static final byte SPLIT = 4;
+    static final byte SURRENDER_HIT = 5; // surrender, or hit when surrender isn't allowed
+    static final byte SURRENDER_STAND = 6; // surrender, or stand when surrender isn't allowed
+
+    // how actions are written in a chart, indexed by action
+    private static final String[] ACTION_NAMES = {"H", "S", "D", "Ds", "P", "Rh", "Rs"};
+
+    private static final int COLUMNS = 11; // indexed by dealer points, 1 for an ace up to 10
+    private static final int TOTALS = 22; // indexed by hand total, up to 21
+
+    // the chart for this game's house rules: the dealer stands on all 17s, one split,
+    // and no doubling down after splitting or on a pair. the surrenders only count at
+    // tables whose RuleSet offers it
+    private static final String[] HOUSE_CHART = {
+        "hard,4,H,H,H,H,H,H,H,H,H,H",
+        "hard,5,H,H,H,H,H,H,H,H,H,H",
+        "hard,6,H,H,H,H,H,H,H,H,H,H",
+        "hard,7,H,H,H,H,H,H,H,H,H,H",
+        "hard,8,H,H,H,H,H,H,H,H,H,H",
+        "hard,9,H,D,D,D,D,H,H,H,H,H",
+        "hard,10,D,D,D,D,D,D,D,D,H,H",
+        "hard,11,D,D,D,D,D,D,D,D,D,H",
+        "hard,12,H,H,S,S,S,H,H,H,H,H",
+        "hard,13,S,S,S,S,S,H,H,H,H,H",
+        "hard,14,S,S,S,S,S,H,H,H,H,H",
+        "hard,15,S,S,S,S,S,H,H,H,Rh,H",
+        "hard,16,S,S,S,S,S,H,H,Rh,Rh,Rh",
+        "hard,17,S,S,S,S,S,S,S,S,S,S",
+        "hard,18,S,S,S,S,S,S,S,S,S,S",
+        "hard,19,S,S,S,S,S,S,S,S,S,S",
+        "hard,20,S,S,S,S,S,S,S,S,S,S",
+        "hard,21,S,S,S,S,S,S,S,S,S,S",
+        "soft,12,H,H,H,H,H,H,H,H,H,H",
+        "soft,13,H,H,H,D,D,H,H,H,H,H",
+        "soft,14,H,H,H,D,D,H,H,H,H,H",
+        "soft,15,H,H,D,D,D,H,H,H,H,H",
+        "soft,16,H,H,D,D,D,H,H,H,H,H",
+        "soft,17,H,D,D,D,D,H,H,H,H,H",
+        "soft,18,S,Ds,Ds,Ds,Ds,S,S,H,H,H",
+        "soft,19,S,S,S,S,S,S,S,S,S,S",
+        "soft,20,S,S,S,S,S,S,S,S,S,S",
+        "soft,21,S,S,S,S,S,S,S,S,S,S",
+        "pair,2,H,H,P,P,P,P,H,H,H,H",
+        "pair,3,H,H,P,P,P,P,H,H,H,H",
+        "pair,4,H,H,H,H,H,H,H,H,H,H",
+        "pair,5,H,H,H,H,H,H,H,H,H,H",
+        "pair,6,H,P,P,P,P,H,H,H,H,H",
+        "pair,7,P,P,P,P,P,P,H,H,H,H",
+        "pair,8,P,P,P,P,P,P,P,P,P,P",
+        "pair,9,P,P,P,P,P,S,P,P,S,S",
+        "pair,10,S,S,S,S,S,S,S,S,S,S",
+        "pair,A,P,P,P,P,P,P,P,P,P,P",
+    };
+
+    // the rows that change when the dealer hits soft 17: double 11 and soft 18 against more
+    // cards, double soft 19 against a 6, and surrender 15 and 17 against an ace
+    private static final String[] H17_ROWS = {
+        "hard,11,D,D,D,D,D,D,D,D,D,D",
+        "hard,15,S,S,S,S,S,H,H,H,Rh,Rh",
+        "hard,17,S,S,S,S,S,S,S,S,S,Rs",
+        "soft,18,Ds,Ds,Ds,Ds,Ds,S,S,H,H,H",
+        "soft,19,S,S,S,S,Ds,S,S,S,S,S",
+    };
+
+    // the rows that change when split hands can double down: small pairs split against more cards
+    private static final String[] DAS_ROWS = {
+        "pair,2,P,P,P,P,P,P,H,H,H,H",
+        "pair,3,P,P,P,P,P,P,H,H,H,H",
+        "pair,4,H,H,H,P,P,H,H,H,H,H",
+        "pair,6,P,P,P,P,P,H,H,H,H,H",
+    };
+
+    // the charts built so far, indexed by whether the dealer hits soft 17 and whether split hands double
+    private static final StrategyTable[] charts = new StrategyTable[4];
+
+    private final byte[] hard; // action for each hard total and dealer card
+    private final byte[] soft; // action for each soft total and dealer card
+    private final byte[] pairs; // action for each pair's points and dealer card
+
+    // an empty table, every hand hits until rows are set
+    public StrategyTable() {
+        hard = new byte[TOTALS * COLUMNS];
+        soft = new byte[TOTALS * COLUMNS];
+        pairs = new byte[COLUMNS * COLUMNS];
+    }
+
+    // a copy of another table, to be changed without touching the original
+    public StrategyTable(StrategyTable other) {
+        hard = other.hard.clone();
+        soft = other.soft.clone();
+        pairs = other.pairs.clone();
+    }
+
+    // the chart for this game's house rules, built once and shared
+    static StrategyTable house() {
+        return forRules(RuleSet.HOUSE);
+    }
+
+    // the chart for the given rules, built once and shared. the house chart is changed for a
+    // dealer who hits soft 17 and for doubling after splits; the number of splits and the
+    // payouts don't change basic strategy enough to need a chart of their own.
+    // a chart for any other rules can be worked out by StrategyOptimizer and read with load
+    static synchronized StrategyTable forRules(RuleSet rules) {
+        int index = (rules.hitSoft17() ? 2 : 0) + (rules.doubleAfterSplit() ? 1 : 0);
+        if (charts[index] == null) {
+            StrategyTable table = new StrategyTable();
+            for (String row : HOUSE_CHART) table.setRow(row);
+            if (rules.hitSoft17()) {
+                for (String row : H17_ROWS) table.setRow(row);
+            }
+            if (rules.doubleAfterSplit()) {
+                for (String row : DAS_ROWS) table.setRow(row);
+            }
+            charts[index] = table;
+        }
+        return charts[index];
+    }
+
+    // the action for a hand that isn't a pair
+    byte action(int total, boolean isSoft, int dealerPoints) {
+        return isSoft ? soft[total * COLUMNS + dealerPoints] : hard[total * COLUMNS + dealerPoints];
+    }
+
+    // the action for a pair of cards that are each worth the given points
+    byte pairAction(int points, int dealerPoints) {
+        return pairs[points * COLUMNS + dealerPoints];
+    }
+
+    // sets the action for a hand that isn't a pair
+    void setAction(int total, boolean isSoft, int dealerPoints, byte action) {
+        if (isSoft) soft[total * COLUMNS + dealerPoints] = action;
+        else hard[total * COLUMNS + dealerPoints] = action;
+    }
+
+    // sets the action for a pair of cards that are each worth the given points
+    void setPairAction(int points, int dealerPoints, byte action) {
+        pairs[points * COLUMNS + dealerPoints] = action;
+    }
+
+    // how many actions in this chart differ from the other one
+    int differences(StrategyTable other) {
+        int count = 0;
+        for (int i = 0; i < hard.length; i++) {
+            if (hard[i] != other.hard[i]) count++;
+            if (soft[i] != other.soft[i]) count++;
+        }
+        for (int i = 0; i < pairs.length; i++) {
+            if (pairs[i] != other.pairs[i]) count++;
+        }
+        return count;
+    }
+
+    // reads a chart, ignoring blank lines and lines starting with #
+    static StrategyTable load(BufferedReader reader) throws IOException {
+        StrategyTable table = new StrategyTable();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            table.setRow(line);
+        }
+        return table;
+    }
+
+    // writes the chart in the same form load reads it
+    void write(PrintStream out) {
+        out.println("# hand,total,dealer 2,3,4,5,6,7,8,9,10,A");
+        for (int total = 4; total < TOTALS; total++) writeRow(out, "hard", Integer.toString(total), hard, total);
+        for (int total = 12; total < TOTALS; total++) writeRow(out, "soft", Integer.toString(total), soft, total);
+        for (int points = 2; points <= 10; points++) writeRow(out, "pair", Integer.toString(points), pairs, points);
+        writeRow(out, "pair", "A", pairs, 1);
+    }
+
+    private void writeRow(PrintStream out, String kind, String name, byte[] actions, int row) {
+        StringBuilder line = new StringBuilder(kind).append(',').append(name);
+        for (int column = 0; column < COLUMNS - 1; column++) {
+            line.append(',').append(ACTION_NAMES[actions[row * COLUMNS + dealerPoints(column)]]);
+        }
+        out.println(line);
+    }
+
+    // fills in one row of the chart from its CSV form
+    void setRow(String line) {
+        String[] cells = line.split(",");
+        if (cells.length != 2 + COLUMNS - 1)
+            throw new IllegalArgumentException("expected a hand, a total and 10 actions: " + line);
+
+        byte[] actions;
+        int row;
+        if (cells[0].equals("pair")) {
+            actions = pairs;
+            row = cells[1].equals("A") ? 1 : Integer.parseInt(cells[1]);
+            if (row < 2 && !cells[1].equals("A") || row > 10)
+                throw new IllegalArgumentException("no pair of " + cells[1] + ": " + line);
+        } else if (cells[0].equals("hard") || cells[0].equals("soft")) {
+            actions = cells[0].equals("hard") ? hard : soft;
+            row = Integer.parseInt(cells[1]);
+            if (row < 2 || row >= TOTALS)
+                throw new IllegalArgumentException("no " + cells[0] + " total of " + row + ": " + line);
+        } else {
+            throw new IllegalArgumentException("expected hard, soft or pair: " + line);
+        }
+
+        for (int column = 0; column < COLUMNS - 1; column++) {
+            actions[row * COLUMNS + dealerPoints(column)] = parseAction(cells[2 + column], line);
+        }
+    }
+
+    // chart columns run 2 through 10 and then the ace, which is worth 1 point
+    private static int dealerPoints(int column) {
+        return column == COLUMNS - 2 ? 1 : column + 2;
+    }
+
+    private static byte parseAction(String name, String line) {
+        for (byte action = 0; action < ACTION_NAMES.length; action++) {
+            if (ACTION_NAMES[action].equals(name)) return action;
+        }
+        throw new IllegalArgumentException("unknown action " + name + ": " + line);
+    }
+
+    // usage: java StrategyTable [rules]
+    // prints the chart for the given rules, the house rules by default, as CSV to be edited and loaded back
+    public static void main(String[] args) {
+        forRules(args.length > 0 ? RuleSet.parse(args[0]) : RuleSet.HOUSE).write(System.out);
+    }
+
+} // end class StrategyTable
+
+
+
+// plays every hand by a basic strategy chart, with a flat bet.
+// the default player for simulations
+class BasicStrategy implements PlayerStrategy, FastStrategy {
+    private final StrategyTable table; // the chart every decision is looked up in
+    private final int betSize; // the same wager every round
+
+    public BasicStrategy(int betSize) {
+        this(StrategyTable.house(), betSize);
+    }
+
+    // plays the chart for the given rules
+    public BasicStrategy(RuleSet rules, int betSize) {
+        this(StrategyTable.forRules(rules), betSize);
+    }
+
+    public BasicStrategy(StrategyTable table, int betSize) {
+        this.table = table;
+        this.betSize = betSize;
+    }
+
+    public int bet(Player user) {
+        return Math.min(betSize, user.getMoney());
+    }
+
+    public boolean split(Player user, Hand hand, Card dealerCard) {
+        return split(hand.getCard(0).getValue(), Cards.valuePoints(dealerCard.getValue()));
+    }
+
+    public boolean doubleDown(Player user, Hand hand, Card dealerCard) {
+        return doubleDown(hand.handValue(), hand.isSoft(), Cards.valuePoints(dealerCard.getValue()));
+    }
+
+    // doubles for the full bet, or as much of it as the player can afford
+    public int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize) {
+        return Math.min(betSize, user.getMoney() - betSize);
+    }
+
+    public boolean hit(Player user, Hand hand, Card dealerCard) {
+        return hit(hand.handValue(), hand.isSoft(), Cards.valuePoints(dealerCard.getValue()));
+    }
+
+    public boolean split(int value, int dealerPoints) {
+        return table.pairAction(Cards.valuePoints(value), dealerPoints) == StrategyTable.SPLIT;
+    }
+
+    public boolean doubleDown(int total, boolean soft, int dealerPoints) {
+        byte action = table.action(total, soft, dealerPoints);
+        return action == StrategyTable.DOUBLE || action == StrategyTable.DOUBLE_STAND;
+    }
+
+    // after the first two cards a double becomes a hit, or a stand for DOUBLE_STAND,
+    // and so does a surrender the rules don't offer
+    public boolean hit(int total, boolean soft, int dealerPoints) {
+        byte action = table.action(total, soft, dealerPoints);
+        return action == StrategyTable.HIT || action == StrategyTable.DOUBLE || action == StrategyTable.SURRENDER_HIT;
+    }
+
+    public boolean surrender(int total, boolean soft, int dealerPoints) {
+        byte action = table.action(total, soft, dealerPoints);
+        return action == StrategyTable.SURRENDER_HIT || action == StrategyTable.SURRENDER_STAND;
+    }
+
+} // end class BasicStrategy
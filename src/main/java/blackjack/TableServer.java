@@ -0,0 +1,435 @@
+package blackjack;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+// class TableServer hosts many blackjack tables over plain TCP, one line of text per answer,
+// exactly what the console game reads from the keyboard.
+// every connection is a seat; seats fill a table up to seatsPerTable and then a new table is opened.
+// each table plays on its own thread, a virtual thread when the JVM has them, so a table
+// waiting on a slow player costs a parked virtual thread rather than a platform thread.
+// with a SessionStore every connection is a new player, numbered after the last one the store
+// has seen, and every round every table settles is recorded there
+class TableServer {
+    static final int DEFAULT_PORT = 21000;
+    static final long SLOW_SETTLE_NANOS = 1000000; // settling a round should take less than this
+
+    private final int seatsPerTable; // the most seats at any one table
+    private final ExecutorService tables; // runs every table
+    private Table filling; // the table new seats join, until it is full
+    private final SessionStore store; // where rounds are recorded, null for nowhere
+    private int nextId; // the id of the next player to sit down
+
+    // totals over every table, reported while the server runs
+    private final LongAdder openTables = new LongAdder();
+    private final LongAdder seated = new LongAdder();
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder settleNanos = new LongAdder();
+    private final LongAdder slowSettles = new LongAdder();
+    private final AtomicLong maxSettleNanos = new AtomicLong();
+
+    public TableServer(int seatsPerTable) {
+        this(seatsPerTable, null);
+    }
+
+    public TableServer(int seatsPerTable, SessionStore store) {
+        if (seatsPerTable <= 0 || seatsPerTable > RuleSet.HOUSE.seats())
+            throw new IllegalArgumentException("The house only has up to " + RuleSet.HOUSE.seats() + " seats, not "
+                + seatsPerTable);
+        this.seatsPerTable = seatsPerTable;
+        this.tables = newThreadPerTaskExecutor();
+        this.store = store;
+        this.nextId = store == null ? 0 : store.players();
+    }
+
+    // an executor that starts a virtual thread per task on JVMs that have them (Java 21 and up),
+    // and a cached pool of platform threads everywhere else
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // accepts seats until the server socket is closed
+    void serve(ServerSocket server) throws IOException {
+        while (true) {
+            Socket socket = server.accept();
+            socket.setTcpNoDelay(true);
+            seat(new Seat(socket));
+        }
+    }
+
+    // puts a seat at the filling table, opening a new one if that one is full or has closed
+    private void seat(Seat seat) {
+        seat.setId(nextId++);
+        if (filling == null || !filling.join(seat)) {
+            filling = new Table(this, seatsPerTable);
+            filling.join(seat);
+            openTables.increment();
+            tables.execute(filling);
+        }
+        seated.increment();
+    }
+
+    // a new player's bankroll, kept in the store when there is one
+    Bankroll bankroll(int id) {
+        long opening = 1000 * Bankroll.CENTS;
+        return store == null ? new Bankroll(id, opening, null) : store.bankroll(id, opening);
+    }
+
+    // a table's events, which also record each round when there is a store
+    GameEvents recording(GameEvents events) {
+        return store == null ? events : store.recording(events);
+    }
+
+    void seatLeft() {
+        seated.decrement();
+    }
+
+    void tableClosed() {
+        openTables.decrement();
+    }
+
+    // counts one settled round, and how long settling it took
+    void roundSettled(long nanos) {
+        rounds.increment();
+        settleNanos.add(nanos);
+        if (nanos > SLOW_SETTLE_NANOS) slowSettles.increment();
+        maxSettleNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // prints the totals since the last report, and starts counting again
+    void report(PrintStream out, long elapsedNanos) {
+        long count = rounds.sumThenReset();
+        long nanos = settleNanos.sumThenReset();
+        long slow = slowSettles.sumThenReset();
+        long max = maxSettleNanos.getAndSet(0);
+        out.printf("%d tables, %d seats: %.0f rounds/sec, settle mean %.1f us, max %.1f us, %d over 1 ms%n",
+            openTables.sum(), seated.sum(), count * 1e9 / elapsedNanos,
+            count == 0 ? 0 : nanos / 1e3 / count, max / 1e3, slow);
+    }
+
+    // usage: java TableServer [port] [seats per table] [store directory]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : RuleSet.HOUSE.seats();
+        SessionStore store = args.length > 2 ? new SessionStore(Paths.get(args[2]), 1 << 16, 1 << 20) : null;
+        TableServer tableServer = new TableServer(seats, store);
+
+        Thread reporter = new Thread(() -> {
+            long last = System.nanoTime();
+            while (true) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long now = System.nanoTime();
+                tableServer.report(System.out, now - last);
+                last = now;
+            }
+        }, "report");
+        reporter.setDaemon(true);
+        reporter.start();
+        Metrics.start(System.out, 30);
+
+        try (ServerSocket server = new ServerSocket(port, 4096)) {
+            System.out.println("Blackjack tables open on port " + port + ", " + seats + " seats per table");
+            tableServer.serve(server);
+        } finally {
+            if (store != null) store.close();
+        }
+    }
+
+} // end class TableServer
+
+
+
+// one player's connection to a table.
+// the table's events and the player's own prompts share one buffer, which is flushed
+// whenever the table is about to wait for an answer from anyone
+class Seat {
+    private final Socket socket; // the player's connection
+    private final BufferedOutputStream out; // everything the player is sent, until it is flushed
+    private final PrintStream prompts; // the player's own questions
+    private Scanner answers; // what the player types
+    private int id; // the player's id, given when they connect
+    private Player player; // the player, once they are at a table
+    private ConsoleStrategy console; // asks this player for their decisions
+    private boolean gone; // whether the player has disconnected
+
+    public Seat(Socket socket) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+        this.prompts = new PrintStream(out, false);
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    // sits the player at the given table, which deals from the given deck, with the given bankroll
+    void sit(Table table, Deck deck, Bankroll bankroll) throws IOException {
+        InputStream in = new FilterInputStream(socket.getInputStream()) {
+            public int read() throws IOException {
+                table.flush();
+                return super.read();
+            }
+
+            public int read(byte[] b, int off, int len) throws IOException {
+                table.flush();
+                return super.read(b, off, len);
+            }
+        };
+        answers = new Scanner(in);
+        player = new Player(deck, bankroll);
+        console = new ConsoleStrategy(answers, prompts);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    Player getPlayer() {
+        return player;
+    }
+
+    ConsoleStrategy getConsole() {
+        return console;
+    }
+
+    PrintStream getPrompts() {
+        return prompts;
+    }
+
+    boolean isGone() {
+        return gone;
+    }
+
+    // sends the player everything written so far
+    void flush() {
+        if (gone) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            leave();
+        }
+    }
+
+    // writes to this player only, unless they have gone
+    void write(byte[] b, int off, int len) {
+        if (gone) return;
+        try {
+            out.write(b, off, len);
+        } catch (IOException e) {
+            leave();
+        }
+    }
+
+    // marks the player as gone; the table takes them off at the end of the round
+    void leave() {
+        gone = true;
+    }
+
+    void close() {
+        flush();
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to tell the player
+        }
+    }
+
+} // end class Seat
+
+
+
+// one table: its own deck and dealer, and the seats playing at it.
+// it plays rounds back to back until every seat has left, asking each seat's own
+// ConsoleStrategy for that seat's decisions and telling every seat what happens
+class Table implements Runnable, PlayerStrategy {
+    private final TableServer server; // where the table's rounds are counted
+    private final int capacity; // the most seats this table holds
+    private final Deck deck = new Deck(); // the table's own deck
+    private final Player dealer = new Player(deck); // the house
+    private final ArrayList<Seat> seats = new ArrayList<Seat>(); // the seats playing
+    private final ArrayList<Player> players = new ArrayList<Player>(); // their players, in the same order
+    private final ArrayDeque<Seat> arriving = new ArrayDeque<Seat>(); // seats that sit down next round
+    private int taken; // seats playing or arriving
+    private boolean closed; // whether the table has stopped dealing
+    private final GameEvents events; // tells every seat what happens
+
+    public Table(TableServer server, int capacity) {
+        this.server = server;
+        this.capacity = capacity;
+        this.events = server.recording(new TextEvents(new PrintStream(new OutputStream() {
+            public void write(int b) {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            public void write(byte[] b, int off, int len) {
+                for (Seat seat : seats) seat.write(b, off, len);
+            }
+        }, false)));
+    }
+
+    // adds a seat before the next round, false if the table is full or has closed
+    synchronized boolean join(Seat seat) {
+        if (closed || taken == capacity) return false;
+        arriving.add(seat);
+        taken++;
+        return true;
+    }
+
+    // seats everyone who has arrived, and closes the table if no one is left
+    private synchronized boolean seatArrivals() throws IOException {
+        while (!arriving.isEmpty()) {
+            Seat seat = arriving.poll();
+            seat.sit(this, deck, server.bankroll(seat.getId()));
+            seats.add(seat);
+            players.add(seat.getPlayer());
+            seat.getPrompts().println("*------------------------*");
+            seat.getPrompts().println("*  WELCOME TO BLACKJACK  *");
+            seat.getPrompts().println("*------------------------*");
+        }
+        if (seats.isEmpty()) closed = true;
+        return !closed;
+    }
+
+    // takes off everyone who has gone or can't afford another round
+    private void clearTable() {
+        int i = 0;
+        while (i < seats.size()) {
+            Seat seat = seats.get(i);
+            if (!seat.isGone() && seat.getPlayer().getMoney() > 0) {
+                i++;
+                continue;
+            }
+            if (!seat.isGone()) seat.getPrompts().println("You can't afford to play \n");
+            seat.getPrompts().println(" *** Thanks for coming today, your final wealth is "
+                + seat.getPlayer().getMoney() + " *** ");
+            seat.close();
+            seats.remove(i);
+            players.remove(i);
+            synchronized (this) {
+                taken--;
+            }
+            server.seatLeft();
+        }
+    }
+
+    public void run() {
+        try {
+            while (seatArrivals()) {
+                deck.shuffle();
+                dealer.clearHands();
+                dealer.getHand(0).hit();
+                dealer.getHand(0).hit();
+                for (Player player : players) player.clearHands();
+
+                int[] bets = Blackjack.playBlackjack(players, dealer, this, events);
+                long start = System.nanoTime();
+                Blackjack.determineWinners(players, dealer, bets, events);
+                server.roundSettled(System.nanoTime() - start);
+
+                clearTable();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("table closed: " + e);
+            for (Seat seat : seats) seat.leave();
+            clearTable();
+            synchronized (this) {
+                closed = true;
+                for (Seat seat : arriving) seat.close();
+            }
+        }
+        server.tableClosed();
+    }
+
+    // sends every seat what has been written to them so far
+    void flush() {
+        for (Seat seat : seats) seat.flush();
+    }
+
+    // the seat the player is sitting in
+    private Seat seatOf(Player user) {
+        return seats.get(players.indexOf(user));
+    }
+
+    // the player's own answers, or a bet of 0 and standing pat once they've disconnected
+    public int bet(Player user) {
+        Seat seat = seatOf(user);
+        if (seat.isGone()) return 0;
+        try {
+            return seat.getConsole().bet(user);
+        } catch (NoSuchElementException e) {
+            seat.leave();
+            return 0;
+        }
+    }
+
+    public boolean split(Player user, Hand hand, Card dealerCard) {
+        Seat seat = seatOf(user);
+        if (seat.isGone()) return false;
+        try {
+            return seat.getConsole().split(user, hand, dealerCard);
+        } catch (NoSuchElementException e) {
+            seat.leave();
+            return false;
+        }
+    }
+
+    public boolean doubleDown(Player user, Hand hand, Card dealerCard) {
+        Seat seat = seatOf(user);
+        if (seat.isGone()) return false;
+        try {
+            return seat.getConsole().doubleDown(user, hand, dealerCard);
+        } catch (NoSuchElementException e) {
+            seat.leave();
+            return false;
+        }
+    }
+
+    public int doubleDownAmount(Player user, Hand hand, Card dealerCard, int betSize) {
+        Seat seat = seatOf(user);
+        if (seat.isGone()) return 0;
+        try {
+            return seat.getConsole().doubleDownAmount(user, hand, dealerCard, betSize);
+        } catch (NoSuchElementException e) {
+            seat.leave();
+            return 0;
+        }
+    }
+
+    public boolean hit(Player user, Hand hand, Card dealerCard) {
+        Seat seat = seatOf(user);
+        if (seat.isGone()) return false;
+        try {
+            return seat.getConsole().hit(user, hand, dealerCard);
+        } catch (NoSuchElementException e) {
+            seat.leave();
+            return false;
+        }
+    }
+
+} // end class Table
@@ -0,0 +1,175 @@
+package blackjack;
+
+import java.io.PrintStream;
+
+
+// class WhatIf plays one position out many times to compare what the player could do next.
+// the position is dealt once: the player's cards and the dealer's face up card, from a shoe
+// that may already be part of the way through. it is saved to a ShoeState, and every branch
+// puts the shoe and the hands back and plays one action out to the end: standing, hitting
+// and then following the strategy, or doubling down.
+// every action in a branch is dealt from the same seed, so they see the same cards and their
+// differences aren't drowned out by the luck of the draw. the dealer's hole card is drawn in
+// each branch, since the player can't see it and it is no more known than the cards to come
+class WhatIf {
+    static final int STAND = 0;
+    static final int HIT = 1;
+    static final int DOUBLE_DOWN = 2;
+    static final int ACTIONS = 3;
+
+    static final String[] ACTION_NAMES = {"stand", "hit", "double down"};
+    static final int BET = 100; // what each branch wagers, large enough that a 3:2 payout is exact
+
+    private final Shoe shoe; // the cards every branch is dealt from
+    private final RuleSet rules; // what a blackjack pays
+    private final DealerTable dealerTable; // how the dealer draws
+    private final FastStrategy strategy; // how the player goes on after hitting
+    private final ShoeState start; // the shoe as it was when the position was dealt
+    private final FastHand startPlayer = new FastHand(); // the player's cards in the position
+    private final FastHand startDealer = new FastHand(); // the dealer's face up card
+    private final FastHand player = new FastHand(); // the player's hand in the branch being played
+    private final FastHand dealer = new FastHand(); // the dealer's hand in the branch being played
+
+    private final RunningStats[] results = new RunningStats[ACTIONS]; // what each action won, per bet
+    private final RunningStats[] versusStand = new RunningStats[ACTIONS]; // what it won over standing
+
+    public WhatIf(Shoe shoe, RuleSet rules, FastStrategy strategy) {
+        this.shoe = shoe;
+        this.rules = rules;
+        this.dealerTable = rules.dealerTable();
+        this.strategy = strategy;
+        this.start = new ShoeState(shoe);
+        for (int action = 0; action < ACTIONS; action++) {
+            results[action] = new RunningStats();
+            versusStand[action] = new RunningStats();
+        }
+    }
+
+    // shuffles, deals out the given number of cards nobody sees, and then the player's cards and
+    // the dealer's face up card, given by value index. the shoe is saved right after
+    void deal(int cardsDealt, int[] playerValues, int dealerValue) {
+        shoe.shuffle();
+        for (int i = 0; i < cardsDealt; i++) shoe.deal();
+        for (int value : playerValues) shoe.stack(value);
+        shoe.stack(dealerValue);
+
+        startPlayer.clear();
+        for (int i = 0; i < playerValues.length; i++) startPlayer.add(shoe.deal());
+        startDealer.clear();
+        startDealer.add(shoe.deal());
+        shoe.saveTo(start);
+        for (int action = 0; action < ACTIONS; action++) {
+            results[action].reset();
+            versusStand[action].reset();
+        }
+    }
+
+    // plays every action out from the saved position the given number of times
+    void branch(long branches, long seed) {
+        for (long b = 0; b < branches; b++) {
+            double stand = 0;
+            for (int action = 0; action < ACTIONS; action++) {
+                shoe.restore(start, seed + b);
+                player.copyFrom(startPlayer);
+                dealer.copyFrom(startDealer);
+                double result = play(action) / (double) BET;
+                if (action == STAND) stand = result;
+                results[action].add(result);
+                versusStand[action].add(result - stand);
+            }
+        }
+    }
+
+    // plays one action out and settles it the way FastSimulation does, returning what was won
+    private int play(int action) {
+        dealer.add(shoe.deal());
+        int dealerPoints = Cards.points(dealer.card(0));
+        int bet = BET;
+
+        if (action == DOUBLE_DOWN) {
+            bet += BET;
+            player.add(shoe.deal());
+        }
+        else if (action == HIT) {
+            player.add(shoe.deal());
+            while (!player.busted() && strategy.hit(player.total(), player.soft(), dealerPoints)) {
+                player.add(shoe.deal());
+            }
+        }
+
+        if (player.blackjack()) return dealer.blackjack() ? 0 : rules.blackjackPayout(bet);
+        if (player.busted()) return -bet;
+        while (dealerTable.hits(dealer.total(), dealer.soft())) dealer.add(shoe.deal());
+        if (dealer.busted() || player.total() > dealer.total()) return bet;
+        if (player.total() < dealer.total()) return -bet;
+        return 0;
+    }
+
+    // what the given action won per bet over the branches played
+    RunningStats getResults(int action) {
+        return results[action];
+    }
+
+    // what the given action won per bet over standing, branch by branch
+    RunningStats getVersusStand(int action) {
+        return versusStand[action];
+    }
+
+    // prints each action's EV, and what it gains over standing, each with a 95% confidence interval
+    void report(PrintStream out) {
+        out.println("player " + startPlayer.handCards() + "against " + startDealer.handCards()
+            + "with " + start.cardsUsed + " cards out of the shoe, " + results[STAND].count() + " branches");
+        int best = STAND;
+        for (int action = 0; action < ACTIONS; action++) {
+            RunningStats result = results[action];
+            RunningStats gain = versusStand[action];
+            out.printf("%-12s EV %+.4f +/- %.4f", ACTION_NAMES[action], result.mean(), result.halfWidth(SimulationStats.Z));
+            if (action != STAND) out.printf("   over standing %+.4f +/- %.4f", gain.mean(), gain.halfWidth(SimulationStats.Z));
+            out.println();
+            if (result.mean() > results[best].mean()) best = action;
+        }
+        out.println("best: " + ACTION_NAMES[best]);
+    }
+
+    // the value index of a card written as 2 to 10, J, Q, K or A
+    static int parseValue(String rank) {
+        switch (rank.toUpperCase()) {
+            case "A": return Cards.ACE;
+            case "K": return 11;
+            case "Q": return 10;
+            case "J": return 9;
+            default:
+                int points = Integer.parseInt(rank);
+                if (points < 2 || points > 10)
+                    throw new IllegalArgumentException("there's no card " + rank);
+                return points - 2;
+        }
+    }
+
+    // usage: java WhatIf <player cards> <dealer card> [branches] [decks] [cards dealt] [seed] [rules]
+    // player cards are written like 10,6 or A,7
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("usage: WhatIf <player cards> <dealer card> [branches] [decks] [cards dealt] [seed] [rules]");
+            return;
+        }
+        String[] ranks = args[0].split(",");
+        int[] playerValues = new int[ranks.length];
+        for (int i = 0; i < ranks.length; i++) playerValues[i] = parseValue(ranks[i]);
+        int dealerValue = parseValue(args[1]);
+        long branches = args.length > 2 ? Long.parseLong(args[2]) : 1000000;
+        int decks = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+        int cardsDealt = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+        RuleSet rules = args.length > 6 ? RuleSet.parse(args[6]) : RuleSet.HOUSE;
+
+        WhatIf whatIf = new WhatIf(new Shoe(decks, 1, seed), rules, new BasicStrategy(rules, BET));
+        whatIf.deal(cardsDealt, playerValues, dealerValue);
+        long begin = System.nanoTime();
+        whatIf.branch(branches, seed);
+        long elapsed = System.nanoTime() - begin;
+        whatIf.report(System.out);
+        System.out.printf("%.0f ns per branch and action%n", elapsed / (double) (branches * ACTIONS));
+    }
+
+} // end class WhatIf
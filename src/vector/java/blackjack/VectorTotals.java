@@ -0,0 +1,39 @@
+package blackjack;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+// class VectorTotals adds up a HandBatch with the incubating Vector API, as many hands at a time
+// as the CPU's widest vector has bytes: 32 with AVX2. it is compiled on its own, with
+// --add-modules jdk.incubator.vector, and HandTotals.fastest only loads it when the JVM was
+// started with that module too, so the rest of the game never depends on an incubator module.
+// a hand's points fit in a byte, 31 at most, so each lane adds one hand's row of cards
+class VectorTotals implements HandTotals {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    public void totals(HandBatch batch, byte[] totals, boolean[] soft) {
+        byte[] points = batch.points();
+        int capacity = batch.capacity();
+        int rows = batch.maxCards();
+        int hands = batch.hands();
+        int bound = SPECIES.loopBound(hands);
+
+        for (int h = 0; h < bound; h += SPECIES.length()) {
+            ByteVector hard = ByteVector.zero(SPECIES);
+            VectorMask<Byte> ace = SPECIES.maskAll(false);
+            for (int row = 0; row < rows; row++) {
+                ByteVector card = ByteVector.fromArray(SPECIES, points, row * capacity + h);
+                hard = hard.add(card);
+                ace = ace.or(card.eq((byte) 1));
+            }
+            VectorMask<Byte> isSoft = ace.and(hard.compare(VectorOperators.LE, (byte) 11));
+            hard.add((byte) 10, isSoft).intoArray(totals, h);
+            isSoft.intoArray(soft, h);
+        }
+        ScalarTotals.totals(batch, totals, soft, bound, hands);
+    }
+
+} // end class VectorTotals